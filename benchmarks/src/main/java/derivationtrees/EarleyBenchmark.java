@@ -0,0 +1,59 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Building the parse forest, and extracting trees from it. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EarleyBenchmark {
+    @Param({"unambiguous", "ambiguous", "nullable"})
+    public String grammar;
+
+    @Param({"8", "32", "128"})
+    public int length;
+
+    private Earley parser;
+    private ArrayList<String> input;
+
+    @Setup
+    public void setup() {
+        if (grammar.equals("unambiguous")) {
+            parser = new Earley(Grammars.expressions());
+            input = Grammars.expression(length);
+        } else if (grammar.equals("ambiguous")) {
+            parser = new Earley(Grammars.ambiguous());
+            input = Grammars.expression(length);
+        } else {
+            parser = new Earley(Grammars.nullable());
+            input = Grammars.fields(length);
+        }
+    }
+
+    @Benchmark
+    public ParseForest recognize() {
+        return parser.parseForest(input);
+    }
+
+    @Benchmark
+    public ArrayList<NonTerminalTree> parse() {
+        ArrayList<NonTerminalTree> results = new ArrayList<>();
+        parser.parse(input, results);
+        return results;
+    }
+}
@@ -0,0 +1,41 @@
+package derivationtrees;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Expanding all nonterminals to a fixed depth. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpansionBenchmark {
+    @Param({"4", "5", "6"})
+    public int depth;
+
+    private CompiledGrammar grammar;
+
+    @Setup
+    public void setup() {
+        grammar = new CompiledGrammar(Grammars.expressions());
+    }
+
+    @Benchmark
+    public int expand() {
+        Expansion lgges = new Expansion(grammar, Integer.MAX_VALUE);
+        while (lgges.depth() < depth && lgges.expand())
+            ;
+        return lgges.size();
+    }
+}
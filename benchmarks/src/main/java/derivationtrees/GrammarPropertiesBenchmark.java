@@ -0,0 +1,38 @@
+package derivationtrees;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Static analysis of generated grammars with many nonterminals. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GrammarPropertiesBenchmark {
+    @Param({"100", "300", "1000"})
+    public int size;
+
+    private CompiledGrammar grammar;
+
+    @Setup
+    public void setup() {
+        grammar = new CompiledGrammar(Grammars.random(size, 42));
+    }
+
+    @Benchmark
+    public GrammarProperties analyse() {
+        return new GrammarProperties(grammar);
+    }
+}
@@ -0,0 +1,96 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Grammars and inputs used by the benchmarks. */
+class Grammars {
+    /** Expressions with precedence: unambiguous. */
+    static Grammar expressions() {
+        return grammar("E", "E+T|T", "T", "T*F|F", "F", "(E)|a");
+    }
+
+    /** Expressions without precedence: highly ambiguous. */
+    static Grammar ambiguous() {
+        return grammar("E", "E+E|E*E|a");
+    }
+
+    /** Lists of optional fields, with many null expansions. */
+    static Grammar nullable() {
+        return grammar("S", "ABCdS|d", "A", "a|", "B", "b|", "C", "c|");
+    }
+
+    /** Right recursive lists. */
+    static Grammar rightRecursive() {
+        return grammar("S", "aS|");
+    }
+
+    /** Left recursive lists. */
+    static Grammar leftRecursive() {
+        return grammar("S", "Sa|");
+    }
+
+    /** An expression input with n operands. */
+    static ArrayList<String> expression(int n) {
+        ArrayList<String> input = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (i > 0)
+                input.add(i%2 == 1 ? "+" : "*");
+            input.add("a");
+        }
+        return input;
+    }
+
+    /** An input for the nullable grammar of about n symbols. */
+    static ArrayList<String> fields(int n) {
+        String[] pattern = { "a", "d", "b", "c", "d", "d", "a", "b", "c", "d" };
+        ArrayList<String> input = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            input.add(pattern[i%pattern.length]);
+        input.add("d");
+        return input;
+    }
+
+    /** A string of n copies of a symbol. */
+    static ArrayList<String> repeat(String sym, int n) {
+        ArrayList<String> input = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            input.add(sym);
+        return input;
+    }
+
+    /** A pseudo-random grammar with the given number of nonterminals, each
+      with a few productions mentioning nearby nonterminals. */
+    static Grammar random(int size, long seed) {
+        Random random = new Random(seed);
+        Grammar g = new Grammar();
+        for (int i = 0; i < size; i++) {
+            int alts = 1 + random.nextInt(4);
+            for (int j = 0; j < alts; j++) {
+                ArrayList<String> rhs = new ArrayList<>();
+                int len = random.nextInt(4);
+                for (int k = 0; k < len; k++)
+                    if (random.nextInt(3) == 0)
+                        rhs.add(String.valueOf((char)('a' + random.nextInt(5))));
+                    else
+                        rhs.add("N" + Math.min(size - 1,
+                            Math.max(0, i + random.nextInt(11) - 3)));
+                g.addProduction("N" + i, rhs);
+            }
+        }
+        return g;
+    }
+
+    // grammar with single-character symbols, as given to Main
+    private static Grammar grammar(String... args) {
+        Grammar g = new Grammar();
+        for (int i = 1; i < args.length; i = i+2)
+            for (String rhs : args[i].split("[|]", -1)) {
+                ArrayList<String> syms = new ArrayList<>();
+                for (int j = 0; j < rhs.length(); j++)
+                    syms.add(String.valueOf(rhs.charAt(j)));
+                g.addProduction(args[i-1], syms);
+            }
+        return g;
+    }
+}
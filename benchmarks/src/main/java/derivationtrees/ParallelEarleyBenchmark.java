@@ -0,0 +1,55 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Scaling of fork/join chart construction with the number of threads
+  (0 for the sequential parser) on the highly ambiguous grammar. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelEarleyBenchmark {
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"64", "256"})
+    public int length;
+
+    private ForkJoinPool pool;
+    private Earley parser;
+    private ArrayList<String> input;
+
+    @Setup
+    public void setup() {
+        pool = threads == 0 ? null : new ForkJoinPool(threads);
+        parser = new Earley(new CompiledGrammar(Grammars.ambiguous()), pool);
+        input = Grammars.expression(length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null)
+            pool.shutdown();
+    }
+
+    @Benchmark
+    public ParseForest recognize() {
+        return parser.parseForest(input);
+    }
+}
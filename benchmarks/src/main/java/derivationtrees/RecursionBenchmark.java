@@ -0,0 +1,60 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Long recursive lists: building the forest compared with the recognizer
+  using Leo's reduction paths.  As the chart is built from the end of the
+  input, left recursion is the quadratic case for the forest, as right
+  recursion is when parsing from the start. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecursionBenchmark {
+    @Param({"left", "right", "expressions"})
+    public String grammar;
+
+    @Param({"500", "2000"})
+    public int length;
+
+    private Earley parser;
+    private ArrayList<String> input;
+
+    @Setup
+    public void setup() {
+        if (grammar.equals("left")) {
+            parser = new Earley(Grammars.leftRecursive());
+            input = Grammars.repeat("a", length);
+        } else if (grammar.equals("right")) {
+            parser = new Earley(Grammars.rightRecursive());
+            input = Grammars.repeat("a", length);
+        } else {
+            parser = new Earley(Grammars.expressions());
+            input = Grammars.expression(length);
+        }
+    }
+
+    @Benchmark
+    public ParseForest forest() {
+        return parser.parseForest(input);
+    }
+
+    @Benchmark
+    public boolean recognize() {
+        return parser.recognize(input);
+    }
+}
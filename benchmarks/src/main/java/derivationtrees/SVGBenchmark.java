@@ -0,0 +1,56 @@
+package derivationtrees;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Rendering large trees as SVG, discarding the output. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SVGBenchmark {
+    @Param({"100", "1000"})
+    public int leaves;
+
+    private NonTerminalTree tree;
+    private PrintWriter out;
+    private SVG svg;
+
+    @Setup
+    public void setup() {
+        CompiledGrammar g = new CompiledGrammar(Grammars.ambiguous());
+        tree = new Sampler(g, new Random(42)).sample(2*leaves - 1);
+        out = new PrintWriter(new Writer() {
+            public void write(char[] buf, int off, int len) {}
+            public void flush() {}
+            public void close() {}
+        });
+        svg = new SVG(out);
+    }
+
+    @Benchmark
+    public void drawSVG() {
+        tree.drawSVG(out);
+    }
+
+    @Benchmark
+    public void drawSVGShared() {
+        tree.drawSVG(svg);
+        svg.flush();
+    }
+}
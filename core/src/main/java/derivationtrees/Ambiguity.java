@@ -0,0 +1,83 @@
+package derivationtrees;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/** Detection of sentences with more than one derivation tree.
+  A sentence is checked on the forest of its Earley chart, which is
+  searched only until a node with two derivations is found, so no more
+  than the two witness trees are built.
+ */
+public class Ambiguity {
+    private final CompiledGrammar grammar;
+    private final PredictionTable predictions;
+    private final Earley parser;
+
+    public Ambiguity(Grammar grammar) {
+        this(new CompiledGrammar(grammar));
+    }
+
+    public Ambiguity(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        this.predictions = new PredictionTable(grammar);
+        this.parser = new Earley(predictions, null, null);
+    }
+
+    /** Two different derivation trees of the input, or null if it has
+      at most one. */
+    public NonTerminalTree[] witnesses(ArrayList<String> input) {
+        return parser.parseForest(input).ambiguity();
+    }
+
+    /** Two different derivation trees of the tokens read from input, or
+      null if they have at most one. */
+    public NonTerminalTree[] witnesses(Tokenizer input) throws IOException {
+        return parser.parseForest(input).ambiguity();
+    }
+
+    /** Two different derivation trees of a shortest ambiguous sentence
+      of at most maxLength terminals, or null if there is none.
+      Sentences are built from the end, one terminal at a time, on a
+      single chart, abandoning any suffix that no sentence can have,
+      and the bound is lowered to each ambiguous sentence found.
+     */
+    public NonTerminalTree[] shortest(int maxLength) {
+        EarleyChart chart = new EarleyChart(predictions);
+        NonTerminalTree[] best = null;
+        int bound = maxLength;
+        // terminals scanned at each length, from the end of the sentence
+        int[] scanned = new int[maxLength + 1];
+        int length = 0;
+        scanned[0] = grammar.nonTerminalCount() - 1;
+        while (true) {
+            if (scanned[length] == grammar.nonTerminalCount() - 1) {
+                // first visit to this suffix
+                NonTerminalTree[] w = witnesses(chart);
+                if (w != null) {
+                    best = w;
+                    bound = length - 1;
+                }
+            }
+            int next = scanned[length] + 1;
+            if (length < bound && next < grammar.symbolCount()) {
+                scanned[length] = next;
+                if (chart.scan(next)) {
+                    length++;
+                    scanned[length] = grammar.nonTerminalCount() - 1;
+                } else
+                    chart.retract();
+            } else if (length == 0)
+                return best;
+            else {
+                chart.retract();
+                length--;
+            }
+        }
+    }
+
+    // witnesses for the input scanned so far, if it is a sentence
+    private NonTerminalTree[] witnesses(EarleyChart chart) {
+        ParseForest.SymbolNode root = chart.root();
+        return root == null ? null : new ParseForest(grammar, root).ambiguity();
+    }
+}
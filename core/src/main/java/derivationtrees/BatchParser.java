@@ -0,0 +1,166 @@
+package derivationtrees;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Parsing of many sentences, one per line, against one grammar on a
+  pool of worker threads.  Results are written in input order, as JSON
+  lines or as HTML fragments showing the derivation trees.
+ */
+public class BatchParser {
+    /** Output for each sentence. */
+    public enum Format { JSON, HTML }
+
+    // sentences in progress per worker before output waits for them
+    private static final int WINDOW = 16;
+
+    private final CompiledGrammar grammar;
+    private final Tokenizer.Factory tokenizers;
+    private final Format format;
+    private final int threads;
+    // the parser keeps its last chart, so each worker has its own
+    private final ThreadLocal<Earley> parsers;
+
+    public BatchParser(CompiledGrammar grammar, Tokenizer.Factory tokenizers,
+            Format format, int threads) {
+        this(grammar, tokenizers, format, threads, null);
+    }
+
+    /** Batch parser whose workers share a cache of results (if it is
+      not null), so repeated sentences are parsed once. */
+    public BatchParser(CompiledGrammar grammar, Tokenizer.Factory tokenizers,
+            Format format, int threads, ParseCache cache) {
+        this(grammar, new GrammarProperties(grammar), tokenizers, format,
+            threads, cache);
+    }
+
+    /** Batch parser using properties already computed for the grammar;
+      the workers share one prediction table built from them. */
+    public BatchParser(CompiledGrammar grammar, GrammarProperties properties,
+            Tokenizer.Factory tokenizers, Format format, int threads,
+            final ParseCache cache) {
+        final PredictionTable predictions = new PredictionTable(grammar, properties);
+        this.grammar = grammar;
+        this.tokenizers = tokenizers;
+        this.format = format;
+        this.threads = threads;
+        this.parsers = new ThreadLocal<Earley>() {
+            protected Earley initialValue() {
+                return new Earley(predictions, null, cache);
+            }
+        };
+    }
+
+    /** Parse each line of in as a sentence, writing the results to out.
+      Returns the number of sentences.
+     */
+    public long run(BufferedReader in, PrintWriter out) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        long count = 0;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                count++;
+                final long lineNumber = count;
+                final String sentence = line;
+                pending.add(pool.submit(new Callable<String>() {
+                    public String call() throws IOException {
+                        return parse(lineNumber, sentence);
+                    }
+                }));
+                if (pending.size() >= WINDOW*threads)
+                    out.print(result(pending.remove()));
+            }
+            while (! pending.isEmpty())
+                out.print(result(pending.remove()));
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+        return count;
+    }
+
+    private static String result(Future<String> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException)e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private String parse(long lineNumber, String sentence) throws IOException {
+        ArrayList<NonTerminalTree> trees = new ArrayList<>();
+        boolean full = parsers.get().parse(
+            tokenizers.tokenizer(new StringReader(sentence)), trees);
+        StringWriter s = new StringWriter();
+        PrintWriter out = new PrintWriter(s);
+        if (format == Format.JSON) {
+            out.print("{\"line\":");
+            out.print(lineNumber);
+            out.print(",\"sentence\":");
+            jsonString(out, sentence);
+            out.print(",\"derivations\":");
+            out.print(trees.size());
+            out.print(",\"complete\":");
+            out.print(full);
+            out.println("}");
+        } else {
+            Collections.sort(trees, new NonTerminalTree.Ascending());
+            out.print("<h2>");
+            out.print(Main.derivationsHeading(full, trees.size()));
+            out.print(" for '");
+            htmlText(out, sentence);
+            out.println("'</h2>");
+            SVG svg = new SVG(out);
+            for (NonTerminalTree t : trees)
+                t.drawSVG(svg);
+            svg.flush();
+        }
+        out.flush();
+        return s.toString();
+    }
+
+    private static void jsonString(PrintWriter out, String s) {
+        out.print('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.print('\\');
+                out.print(c);
+            } else if (c < ' ')
+                out.printf("\\u%04x", (int)c);
+            else
+                out.print(c);
+        }
+        out.print('"');
+    }
+
+    private static void htmlText(PrintWriter out, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '<')
+                out.print("&lt;");
+            else if (c == '&')
+                out.print("&amp;");
+            else
+                out.print(c);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package derivationtrees;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/** Each character other than whitespace and epsilon is a symbol. */
+public class CharacterTokenizer extends ReaderTokenizer {
+    private final static char EMPTY = '\u03b5';
+
+    private final TerminalTable terminals;
+
+    public CharacterTokenizer(CompiledGrammar grammar, Reader in) {
+        this(new TerminalTable(grammar), in);
+    }
+
+    private CharacterTokenizer(TerminalTable terminals, Reader in) {
+        super(in);
+        this.terminals = terminals;
+    }
+
+    /** Tokenizers for the grammar, sharing the table of terminals. */
+    public static Tokenizer.Factory factory(CompiledGrammar grammar) {
+        final TerminalTable terminals = new TerminalTable(grammar);
+        return new Tokenizer.Factory() {
+            public Tokenizer tokenizer(Reader in) {
+                return new CharacterTokenizer(terminals, in);
+            }
+        };
+    }
+
+    public int next() throws IOException {
+        while (skipSpace()) {
+            pos++;
+            if (buf[mark] != EMPTY)
+                return terminals.lookup(buf, mark, pos);
+        }
+        return END;
+    }
+}
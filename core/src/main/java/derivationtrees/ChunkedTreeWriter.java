@@ -0,0 +1,135 @@
+package derivationtrees;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Trees written as they are produced to numbered script files in a
+  directory, each holding a chunk of trees as SVG strings.  The index
+  page loads the chunks one at a time as the reader scrolls down, so
+  neither the writer nor the browser holds the whole set of trees.
+  Script files are used rather than fetched data so that the pages
+  also work when opened from the file system.
+ */
+class ChunkedTreeWriter {
+    private final Path dir;
+    private final int chunkSize;
+    private final boolean shared;
+
+    private int count; // trees written
+    private int chunks; // chunks started
+    private Writer chunk; // the current chunk, if unfinished
+    private SVGDefs defs;
+    private final StringBuilder text = new StringBuilder();
+    private final SVG svg = new SVG(text);
+
+    /** Writer of chunks of chunkSize trees, drawing shared subtrees once
+      per chunk if shared is set. */
+    public ChunkedTreeWriter(Path dir, int chunkSize, boolean shared)
+            throws IOException {
+        this.dir = dir;
+        this.chunkSize = chunkSize;
+        this.shared = shared;
+        Files.createDirectories(dir);
+    }
+
+    public void add(NonTerminalTree t) throws IOException {
+        if (chunk == null) {
+            chunk = Files.newBufferedWriter(dir.resolve(chunkName(chunks)),
+                StandardCharsets.UTF_8);
+            chunk.write("derivationChunk([");
+            defs = shared ? new SVGDefs("c" + chunks + "t") : null;
+            chunks++;
+        } else
+            chunk.write(",\n");
+        if (shared)
+            t.drawSVG(svg, defs);
+        else
+            t.drawSVG(svg);
+        writeText();
+        count++;
+        if (count%chunkSize == 0)
+            endChunk();
+    }
+
+    /** Number of trees written. */
+    public int count() {
+        return count;
+    }
+
+    /** Finish the last chunk, and write the element showing the trees
+      and the script loading them into the index page. */
+    public void finish(PrintWriter index) throws IOException {
+        endChunk();
+        index.println("<div id=\"trees\"></div>");
+        index.println("<p id=\"more\">Loading&#x2026;</p>");
+        index.println("<script>");
+        index.println("var chunks = " + chunks + ";");
+        index.println("var next = 0;");
+        index.println("var loading = false;");
+        index.println("var more = document.getElementById(\"more\");");
+        index.println("var observer = new IntersectionObserver(function(entries) {");
+        index.println("    if (entries[0].isIntersecting && next < chunks && ! loading) {");
+        index.println("        loading = true;");
+        index.println("        var s = document.createElement(\"script\");");
+        index.println("        s.src = \"chunk-\" + next++ + \".js\";");
+        index.println("        document.body.appendChild(s);");
+        index.println("    }");
+        index.println("});");
+        index.println("function derivationChunk(svgs) {");
+        index.println("    loading = false;");
+        index.println("    document.getElementById(\"trees\").insertAdjacentHTML(\"beforeend\", svgs.join(\"\\n\"));");
+        index.println("    if (next < chunks) {");
+        index.println("        // check again whether the end of the page is in view");
+        index.println("        observer.unobserve(more);");
+        index.println("        observer.observe(more);");
+        index.println("    } else");
+        index.println("        more.style.display = \"none\";");
+        index.println("}");
+        index.println("if (chunks == 0)");
+        index.println("    more.style.display = \"none\";");
+        index.println("else");
+        index.println("    observer.observe(more);");
+        index.println("</script>");
+    }
+
+    private void endChunk() throws IOException {
+        if (chunk == null)
+            return;
+        if (shared) {
+            chunk.write(",\n");
+            defs.write(svg);
+            writeText();
+        }
+        chunk.write("]);\n");
+        chunk.close();
+        chunk = null;
+    }
+
+    // the text drawn so far, as a JavaScript string
+    private void writeText() throws IOException {
+        svg.flush();
+        chunk.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                chunk.write('\\');
+                chunk.write(c);
+            } else if (c == '\n')
+                chunk.write("\\n");
+            else if (c == '\r')
+                chunk.write("\\r");
+            else
+                chunk.write(c);
+        }
+        chunk.write('"');
+        text.setLength(0);
+    }
+
+    static String chunkName(int i) {
+        return "chunk-" + i + ".js";
+    }
+}
@@ -0,0 +1,197 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/** A grammar with symbols interned as integers and productions packed
+  into flat arrays.
+  Nonterminals are numbered from 0 in order of definition (so the start
+  symbol is 0), followed by the terminals.  The productions of
+  nonterminal n are numbered from firstProduction(n) up to (but not
+  including) firstProduction(n+1), and the right hand side of production
+  p is rhsSymbol(rhsStart(p)) ... rhsSymbol(rhsStart(p+1)-1).
+ */
+public class CompiledGrammar {
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    private final BitSet terminals;
+    private final int numNonTerminals;
+    private final int[] lhs;
+    private final int[] prodStart;
+    private final int[] rhsStart;
+    private final int[] rhs;
+    private final long fingerprint;
+
+    public CompiledGrammar(Grammar grammar) {
+        ArrayList<String> symbols = new ArrayList<>(grammar.nonTerminals());
+        ids = new HashMap<>();
+        for (int i = 0; i < symbols.size(); i++)
+            ids.put(symbols.get(i), i);
+        numNonTerminals = symbols.size();
+        int numProds = 0;
+        int numSyms = 0;
+        for (String nt : grammar.nonTerminals())
+            for (ArrayList<String> alt : distinct(grammar.expansions(nt))) {
+                numProds++;
+                numSyms += alt.size();
+                for (String sym : alt)
+                    if (! ids.containsKey(sym)) {
+                        ids.put(sym, symbols.size());
+                        symbols.add(sym);
+                    }
+            }
+        names = symbols.toArray(new String[symbols.size()]);
+        terminals = new BitSet(names.length);
+        terminals.set(numNonTerminals, names.length);
+
+        lhs = new int[numProds];
+        prodStart = new int[numNonTerminals + 1];
+        rhsStart = new int[numProds + 1];
+        rhs = new int[numSyms];
+        int p = 0;
+        int i = 0;
+        for (int nt = 0; nt < numNonTerminals; nt++) {
+            prodStart[nt] = p;
+            for (ArrayList<String> alt : distinct(grammar.expansions(names[nt]))) {
+                lhs[p] = nt;
+                rhsStart[p] = i;
+                for (String sym : alt)
+                    rhs[i++] = ids.get(sym);
+                p++;
+            }
+        }
+        prodStart[numNonTerminals] = p;
+        rhsStart[numProds] = i;
+        fingerprint = computeFingerprint();
+    }
+
+    // copy of a grammar with each right hand side reversed
+    private CompiledGrammar(CompiledGrammar g) {
+        names = g.names;
+        ids = g.ids;
+        terminals = g.terminals;
+        numNonTerminals = g.numNonTerminals;
+        lhs = g.lhs;
+        prodStart = g.prodStart;
+        rhsStart = g.rhsStart;
+        rhs = new int[g.rhs.length];
+        for (int p = 0; p < lhs.length; p++)
+            for (int i = rhsStart[p]; i < rhsStart[p+1]; i++)
+                rhs[i] = g.rhs[rhsStart[p] + rhsStart[p+1] - 1 - i];
+        fingerprint = computeFingerprint();
+    }
+
+    /** The same grammar with the right hand side of each production
+      reversed, so that parsing it from right to left parses this grammar
+      from left to right. */
+    public CompiledGrammar reversed() {
+        return new CompiledGrammar(this);
+    }
+
+    /** A hash of the symbol names and productions that is the same in
+      every run, for identifying the grammar in stored results. */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    // 64-bit FNV-1a over the names and the packed productions
+    private long computeFingerprint() {
+        long h = 0xcbf29ce484222325L;
+        for (String name : names) {
+            for (int k = 0; k < name.length(); k++)
+                h = (h ^ name.charAt(k)) * 0x100000001b3L;
+            h = (h ^ 0xffff) * 0x100000001b3L;
+        }
+        h = (h ^ numNonTerminals) * 0x100000001b3L;
+        for (int x : prodStart)
+            h = (h ^ x) * 0x100000001b3L;
+        for (int x : rhsStart)
+            h = (h ^ x) * 0x100000001b3L;
+        for (int x : rhs)
+            h = (h ^ x) * 0x100000001b3L;
+        return h;
+    }
+
+    // identical alternatives would give identical derivations
+    private static ArrayList<ArrayList<String>> distinct(Iterable<ArrayList<String>> alts) {
+        Set<ArrayList<String>> seen = new HashSet<>();
+        ArrayList<ArrayList<String>> result = new ArrayList<>();
+        for (ArrayList<String> alt : alts)
+            if (seen.add(alt))
+                result.add(alt);
+        return result;
+    }
+
+    /** The start symbol. */
+    public int start() {
+        return 0;
+    }
+
+    /** Number of symbols, nonterminal and terminal. */
+    public int symbolCount() {
+        return names.length;
+    }
+
+    /** Number of nonterminals, which are numbered before all terminals. */
+    public int nonTerminalCount() {
+        return numNonTerminals;
+    }
+
+    /** Number of productions. */
+    public int productionCount() {
+        return lhs.length;
+    }
+
+    /** The number of a symbol, or -1 if it does not occur in the grammar. */
+    public int symbol(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /** The name of a symbol. */
+    public String name(int sym) {
+        return names[sym];
+    }
+
+    public boolean isTerminal(int sym) {
+        return terminals.get(sym);
+    }
+
+    /** The first production of a nonterminal. */
+    public int firstProduction(int nt) {
+        return prodStart[nt];
+    }
+
+    /** The production following the last production of a nonterminal. */
+    public int endProduction(int nt) {
+        return prodStart[nt+1];
+    }
+
+    /** The nonterminal on the left hand side of a production. */
+    public int lhs(int prod) {
+        return lhs[prod];
+    }
+
+    /** Index of the first symbol of the right hand side of a production. */
+    public int rhsStart(int prod) {
+        return rhsStart[prod];
+    }
+
+    /** Index following the right hand side of a production. */
+    public int rhsEnd(int prod) {
+        return rhsStart[prod+1];
+    }
+
+    public int rhsLength(int prod) {
+        return rhsStart[prod+1] - rhsStart[prod];
+    }
+
+    /** Symbol at an index returned by rhsStart. */
+    public int rhsSymbol(int i) {
+        return rhs[i];
+    }
+}
@@ -1,23 +1,37 @@
+package derivationtrees;
+
 import java.util.Iterator;
 
 /** Simple immutable lists. */
 public class Cons<T> {
     public final T head;
     public final Cons<T> tail;
+    private final int hash;
 
     public Cons(T head, Cons<T> tail) {
         this.head = head;
         this.tail = tail;
+        this.hash = head.hashCode() + 31*(tail == null ? 1 : tail.hash);
     }
 
     public boolean equals(Object obj) {
-        Cons<?> o = (Cons<?>)obj;
-        return o != null && head.equals(o.head) &&
-            (tail == null ? o.tail == null : tail.equals(o.tail));
+        if (! (obj instanceof Cons))
+            return false;
+        Cons<?> a = this;
+        Cons<?> b = (Cons<?>)obj;
+        // shared tails are equal
+        while (a != b) {
+            if (a == null || b == null || a.hash != b.hash ||
+                    ! a.head.equals(b.head))
+                return false;
+            a = a.tail;
+            b = b.tail;
+        }
+        return true;
     }
 
     public int hashCode() {
-        return head.hashCode() + 31*(tail == null ? 1 : tail.hashCode());
+        return hash;
     }
 
     private static class ConsIterator<T> implements Iterator<T> {
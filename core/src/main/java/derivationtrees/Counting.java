@@ -0,0 +1,183 @@
+package derivationtrees;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+
+/** Numbers of derivation trees of the start symbol, computed by dynamic
+  programming instead of building the trees.
+  Counts are null where there are infinitely many derivations, which can
+  only happen if the grammar has cyclic nonterminals.
+ */
+public class Counting {
+    private final CompiledGrammar grammar;
+    private final boolean cyclic;
+
+    // byLength.get(n)[sym]: derivations of sentences with n terminals
+    private final ArrayList<BigInteger[]> byLength;
+    // suffixes.get(n)[i]: derivations of n terminals from the rhs suffix
+    // starting at index i (null for indices at the end of a rhs)
+    private final ArrayList<BigInteger[]> suffixes;
+
+    public Counting(Grammar grammar) {
+        this(new CompiledGrammar(grammar));
+    }
+
+    public Counting(CompiledGrammar grammar) {
+        this(grammar, new GrammarProperties(grammar));
+    }
+
+    public Counting(CompiledGrammar grammar, GrammarProperties properties) {
+        this.grammar = grammar;
+        this.cyclic = ! properties.getCyclic().isEmpty();
+        this.byLength = new ArrayList<>();
+        this.suffixes = new ArrayList<>();
+    }
+
+    /** Number of derivation trees of sentences of length n (in terminals),
+      or null if there are infinitely many. */
+    public BigInteger derivations(int n) {
+        extendTo(n);
+        return byLength.get(n)[grammar.start()];
+    }
+
+    /** Number of derivation trees of sentences of length at most n,
+      or null if there are infinitely many. */
+    public BigInteger derivationsUpTo(int n) {
+        BigInteger total = BigInteger.ZERO;
+        for (int i = 0; i <= n; i++)
+            total = plus(total, derivations(i));
+        return total;
+    }
+
+    /** Number of derivation trees of depth at most d, as held by Expansion
+      after d expansions.  This is always finite. */
+    public BigInteger derivationsOfDepth(int d) {
+        return derivationsOfDepthAll(d)[grammar.start()];
+    }
+
+    /** Number of derivation trees of depth at most d of each nonterminal. */
+    BigInteger[] derivationsOfDepthAll(int d) {
+        BigInteger[] count = new BigInteger[grammar.nonTerminalCount()];
+        for (int nt = 0; nt < count.length; nt++)
+            count[nt] = BigInteger.ZERO;
+        for (int k = 0; k < d; k++) {
+            BigInteger[] next = new BigInteger[count.length];
+            for (int nt = 0; nt < count.length; nt++) {
+                BigInteger n = BigInteger.ZERO;
+                for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++) {
+                    BigInteger prod = BigInteger.ONE;
+                    for (int i = grammar.rhsStart(p); i < grammar.rhsEnd(p); i++) {
+                        int sym = grammar.rhsSymbol(i);
+                        if (! grammar.isTerminal(sym))
+                            prod = prod.multiply(count[sym]);
+                    }
+                    n = n.add(prod);
+                }
+                next[nt] = n;
+            }
+            count = next;
+        }
+        return count;
+    }
+
+    /** Derivations of n terminals from a symbol, or null if infinitely many. */
+    BigInteger count(int sym, int n) {
+        extendTo(n);
+        return byLength.get(n)[sym];
+    }
+
+    /** Derivations of n terminals from the suffix of the rhs of p starting
+      at index i, or null if infinitely many. */
+    BigInteger suffixCount(int p, int i, int n) {
+        if (i == grammar.rhsEnd(p))
+            return n == 0 ? BigInteger.ONE : BigInteger.ZERO;
+        extendTo(n);
+        return suffixes.get(n)[i];
+    }
+
+    // fill in the tables for lengths up to n
+    private void extendTo(int n) {
+        final int numSyms = grammar.symbolCount();
+        final int numNTs = grammar.nonTerminalCount();
+        final int size = grammar.rhsEnd(grammar.productionCount() - 1);
+        for (int len = byLength.size(); len <= n; len++) {
+            BigInteger[] counts = new BigInteger[numSyms];
+            for (int sym = 0; sym < numSyms; sym++)
+                counts[sym] = sym >= numNTs && len == 1 ?
+                    BigInteger.ONE : BigInteger.ZERO;
+            BigInteger[] suffix = new BigInteger[size];
+            byLength.add(counts);
+            suffixes.add(suffix);
+
+            // Counts for this length may depend on each other through
+            // nullable symbols, so iterate to a fixed point.  Without cycles
+            // this takes at most one round per nonterminal.
+            int rounds = 0;
+            BigInteger[] snapshot = null;
+            while (round(len)) {
+                rounds++;
+                if (! cyclic)
+                    continue;
+                if (rounds == numNTs + 1)
+                    snapshot = counts.clone();
+                else if (rounds == 2*(numNTs + 1)) {
+                    // Anything still growing is on or depends on a cycle
+                    // of derivations; the rest of the fixed point is found
+                    // by propagating the infinite counts.
+                    for (int nt = 0; nt < numNTs; nt++)
+                        if (! same(counts[nt], snapshot[nt]))
+                            counts[nt] = null;
+                }
+            }
+        }
+    }
+
+    // Update the counts for sentences of length len, returning true if
+    // any changed.
+    private boolean round(int len) {
+        BigInteger[] counts = byLength.get(len);
+        BigInteger[] suffix = suffixes.get(len);
+        boolean changed = false;
+        for (int nt = 0; nt < grammar.nonTerminalCount(); nt++) {
+            BigInteger total = BigInteger.ZERO;
+            for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++) {
+                final int end = grammar.rhsEnd(p);
+                for (int i = end - 1; i >= grammar.rhsStart(p); i--) {
+                    final int sym = grammar.rhsSymbol(i);
+                    BigInteger sum = BigInteger.ZERO;
+                    for (int j = 0; j <= len; j++) {
+                        BigInteger rest = i+1 == end ?
+                            (len - j == 0 ? BigInteger.ONE : BigInteger.ZERO) :
+                            suffixes.get(len - j)[i+1];
+                        sum = plus(sum, times(byLength.get(j)[sym], rest));
+                    }
+                    suffix[i] = sum;
+                }
+                total = plus(total, grammar.rhsStart(p) == end ?
+                    (len == 0 ? BigInteger.ONE : BigInteger.ZERO) :
+                    suffix[grammar.rhsStart(p)]);
+            }
+            if (! same(total, counts[nt])) {
+                counts[nt] = total;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // arithmetic with null as infinity
+
+    private static BigInteger plus(BigInteger a, BigInteger b) {
+        return a == null || b == null ? null : a.add(b);
+    }
+
+    private static BigInteger times(BigInteger a, BigInteger b) {
+        if (a != null && a.signum() == 0 || b != null && b.signum() == 0)
+            return BigInteger.ZERO;
+        return a == null || b == null ? null : a.multiply(b);
+    }
+
+    private static boolean same(BigInteger a, BigInteger b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
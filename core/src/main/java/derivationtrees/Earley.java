@@ -0,0 +1,170 @@
+package derivationtrees;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+
+public class Earley {
+    private static final int TREE_LIMIT = 100;
+
+    private final CompiledGrammar grammar;
+    private final PredictionTable predictions;
+    private final ForkJoinPool pool;
+    private final ParseCache cache;
+    private EarleyChart lastChart;
+
+    public Earley(Grammar grammar) {
+        this(new CompiledGrammar(grammar));
+    }
+
+    public Earley(CompiledGrammar grammar) {
+        this(grammar, null, null);
+    }
+
+    /** Parser that fills each state of the chart in parallel using the
+      pool (or sequentially if it is null). */
+    public Earley(CompiledGrammar grammar, ForkJoinPool pool) {
+        this(grammar, pool, null);
+    }
+
+    /** Parser that also looks up and stores the trees found for each
+      input in the cache (if it is not null). */
+    public Earley(CompiledGrammar grammar, ForkJoinPool pool, ParseCache cache) {
+        this(grammar, new GrammarProperties(grammar), pool, cache);
+    }
+
+    /** Parser using properties already computed for the grammar. */
+    public Earley(CompiledGrammar grammar, GrammarProperties properties) {
+        this(grammar, properties, null, null);
+    }
+
+    public Earley(CompiledGrammar grammar, GrammarProperties properties,
+            ForkJoinPool pool, ParseCache cache) {
+        this(new PredictionTable(grammar, properties), pool, cache);
+    }
+
+    Earley(PredictionTable predictions, ForkJoinPool pool, ParseCache cache) {
+        this.grammar = predictions.grammar();
+        this.predictions = predictions;
+        this.pool = pool;
+        this.cache = cache;
+        this.lastChart = null;
+    }
+
+    /** Derivation trees of the input, up to a limit.
+      Returns false if some derivations were omitted.
+     */
+    public boolean parse(final ArrayList<String> input, ArrayList<NonTerminalTree> results) {
+        return parse(symbols(input), results);
+    }
+
+    /** Derivation trees of the tokens read from input, up to a limit.
+      Returns false if some derivations were omitted.
+     */
+    public boolean parse(Tokenizer input, ArrayList<NonTerminalTree> results)
+            throws IOException {
+        return parse(symbols(input), results);
+    }
+
+    private boolean parse(int[] syms, ArrayList<NonTerminalTree> results) {
+        results.clear();
+        if (cache != null) {
+            ParseCache.Result r = cache.get(grammar, syms, syms.length);
+            if (r != null) {
+                lastChart = null;
+                results.addAll(r.trees);
+                return r.full;
+            }
+        }
+        ParseForest forest = parseForest(syms);
+        Iterator<NonTerminalTree> trees = forest.iterator();
+        while (trees.hasNext() && results.size() < TREE_LIMIT)
+            results.add(trees.next());
+        boolean full = ! trees.hasNext() && ! forest.isCyclic();
+        if (cache != null)
+            cache.put(grammar, syms, syms.length, results, full);
+        return full;
+    }
+
+    /** Whether the input is a sentence of the grammar.  This builds no
+      forest, so the chart grows linearly with the input for LR-regular
+      grammars, including left and right recursive ones. */
+    public boolean recognize(final ArrayList<String> input) {
+        return recognize(symbols(input));
+    }
+
+    /** Whether the tokens read from input form a sentence of the grammar. */
+    public boolean recognize(Tokenizer input) throws IOException {
+        return recognize(symbols(input));
+    }
+
+    private boolean recognize(int[] syms) {
+        EarleyChart chart = new EarleyChart(predictions, null, true, next(syms, syms.length));
+        lastChart = chart;
+        for (int pos = syms.length - 1; pos >= 0; pos--)
+            if (! chart.scan(syms[pos], next(syms, pos)))
+                return false;
+        return chart.root() != null;
+    }
+
+    /** Shared packed parse forest of all derivations of the input. */
+    public ParseForest parseForest(final ArrayList<String> input) {
+        return parseForest(symbols(input));
+    }
+
+    /** Shared packed parse forest of all derivations of the tokens read
+      from input.  The whole input is read first, as it is parsed from
+      the end.
+     */
+    public ParseForest parseForest(Tokenizer input) throws IOException {
+        return parseForest(symbols(input));
+    }
+
+    private ParseForest parseForest(int[] syms) {
+        // scanning right to left
+        EarleyChart chart = new EarleyChart(predictions, pool, false, next(syms, syms.length));
+        lastChart = chart;
+        for (int pos = syms.length - 1; pos >= 0; pos--)
+            if (! chart.scan(syms[pos], next(syms, pos)))
+                return new ParseForest(grammar, null);
+        return new ParseForest(grammar, chart.root());
+    }
+
+    // the symbol scanned after the one at pos, working from the end
+    private static int next(int[] syms, int pos) {
+        return pos > 0 ? syms[pos - 1] : Tokenizer.END;
+    }
+
+    private int[] symbols(ArrayList<String> input) {
+        int[] syms = new int[input.size()];
+        for (int pos = 0; pos < syms.length; pos++)
+            syms[pos] = grammar.symbol(input.get(pos));
+        return syms;
+    }
+
+    private static int[] symbols(Tokenizer input) throws IOException {
+        int[] syms = new int[64];
+        int n = 0;
+        for (int sym = input.next(); sym != Tokenizer.END; sym = input.next()) {
+            if (n == syms.length)
+                syms = Arrays.copyOf(syms, 2*n);
+            syms[n++] = sym;
+        }
+        return Arrays.copyOf(syms, n);
+    }
+
+    /** Print the states of the last parse, numbered by the number of
+      symbols scanned from the end of the input. */
+    public void printStates(PrintWriter out) {
+        if (lastChart != null)
+            for (int i = 0; i <= lastChart.length(); i++) {
+                out.println("State " + i + ":");
+                for (EarleyItem item : lastChart.state(i).items())
+                    out.println(item.toString(grammar));
+                out.println();
+            }
+    }
+}
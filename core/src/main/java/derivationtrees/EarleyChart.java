@@ -0,0 +1,321 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** An Earley chart built one input symbol at a time.
+  Items match right hand sides from right to left, so feeding the input
+  from its end parses it with the grammar, while feeding it from the
+  start parses it with the reversed grammar.  States are numbered by the
+  number of symbols scanned.
+  Each state predicts the whole prediction closure of a nonterminal the
+  first time it is needed, so predicted items need not predict again,
+  leaving out productions that cannot end with the next symbol to be
+  scanned, if it is known.
+  A recognizer chart records no derivations, and uses Leo's method of
+  completing the item at the top of a deterministic reduction path in
+  place of each item on the path, which keeps the chart linear in the
+  input for every LR-regular grammar, including left recursive ones
+  (right recursive when the chart is fed from the start).  It also
+  passes over nullable symbols as soon as they are predicted, as
+  Aycock and Horspool do, where a forest has to wait for the node of
+  the null derivation.
+ */
+class EarleyChart {
+    // batches of items smaller than this are processed in one task
+    private static final int BATCH = 64;
+
+    /** Lookahead when the next symbol to be scanned is not known. */
+    public static final int ANY = -3;
+
+    private final CompiledGrammar grammar;
+    private final PredictionTable predictions;
+    private final ForkJoinPool pool;
+    private final boolean recognizer;
+    private final ArrayList<EarleyState> states;
+    // the next symbol to be scanned, while a state is being filled
+    private int next;
+
+    /** Chart for the empty input with the grammar of the predictions. */
+    public EarleyChart(PredictionTable predictions) {
+        this(predictions, null, false, ANY);
+    }
+
+    /** Chart for the empty input, filling states using the pool (or
+      sequentially if it is null), and only recognizing the input,
+      with no forest, if recognizer is set (and there is no pool).
+      next is the last symbol of the input (see scan).
+     */
+    public EarleyChart(PredictionTable predictions, ForkJoinPool pool,
+            boolean recognizer, int next) {
+        if (recognizer && pool != null)
+            throw new IllegalArgumentException("parallel recognizer");
+        this.grammar = predictions.grammar();
+        this.predictions = predictions;
+        this.pool = pool;
+        this.recognizer = recognizer;
+        this.next = next;
+        this.states = new ArrayList<>();
+        EarleyState state = new EarleyState(0, pool != null);
+        states.add(state);
+        predict(state, grammar.start());
+        close(state);
+    }
+
+    /** Add a state for the next input symbol (-1 if it is not a symbol of
+      the grammar).  Returns false if the new state is empty, so no
+      further input can be parsed.
+     */
+    public boolean scan(int sym) {
+        return scan(sym, ANY);
+    }
+
+    /** Add a state for the next input symbol, given the symbol to be
+      scanned after it (-1 if it is not a symbol of the grammar, or
+      Tokenizer.END if there are no more), so that only productions that
+      can end with that symbol are predicted.
+     */
+    public boolean scan(int sym, int next) {
+        this.next = next;
+        EarleyState state = new EarleyState(states.size(), pool != null);
+        if (sym >= 0 && grammar.isTerminal(sym)) {
+            ParseForest.Node t = recognizer ? null :
+                new ParseForest.TerminalNode(grammar.name(sym));
+            for (EarleyItem prev : states.get(states.size() - 1).waiting(sym))
+                advance(state, prev, t);
+        }
+        states.add(state);
+        close(state);
+        return ! state.isEmpty();
+    }
+
+    /** Remove the state added by the last scan.  Scanning only adds to
+      the new state, so this restores the chart as it was before. */
+    void retract() {
+        if (states.size() > 1)
+            states.remove(states.size() - 1);
+    }
+
+    // process the items of the state until no more are added
+    private void close(EarleyState state) {
+        if (pool != null) {
+            closeParallel(state);
+            return;
+        }
+        final int pos = state.position();
+        while (state.hasPending()) {
+            EarleyItem item = state.next();
+            if (item.finished()) {
+                // complete a production
+                final int nt = grammar.lhs(item.production());
+                final int end = item.start();
+                ParseForest.SymbolNode t = state.completion(nt, end);
+                if (t != null) {
+                    // another derivation of a known node
+                    if (! recognizer)
+                        t.addAlternative(item);
+                    continue;
+                }
+                t = new ParseForest.SymbolNode(nt, pos, end);
+                if (! recognizer)
+                    t.addAlternative(item);
+                state.addCompletion(t);
+                EarleyItem top = recognizer && end != pos ? topmost(end, nt) : null;
+                if (top != null) {
+                    state.add(new EarleyItem(top));
+                    continue;
+                }
+                // null expansions (end == pos) need special treatment:
+                // items processed later are advanced when predicted
+                for (EarleyItem prev : states.get(end).waiting(nt))
+                    advance(state, prev, t);
+            } else {
+                final int sym = item.current(grammar);
+                state.index(sym, item);
+                if (! grammar.isTerminal(sym)) {
+                    // predict: expand a nonterminal, unless this item was
+                    // itself predicted with its closure
+                    if (! item.predicted(grammar))
+                        predict(state, sym);
+                    if (recognizer && predictions.isNullable(sym))
+                        advance(state, item, null);
+                    else {
+                        ParseForest.SymbolNode t = state.completion(sym, pos);
+                        if (t != null)
+                            advance(state, item, t);
+                    }
+                }
+            }
+        }
+    }
+
+    // add items for the productions of the closure of nt not yet predicted
+    private void predict(EarleyState state, int nt) {
+        if (! state.predict(nt))
+            return;
+        final int pos = state.position();
+        final int end = predictions.closureEnd(nt);
+        for (int i = predictions.closureStart(nt); i < end; i++) {
+            final int x = predictions.closureMember(i);
+            if (x == nt || state.predict(x))
+                for (int p = grammar.firstProduction(x); p < grammar.endProduction(x); p++)
+                    if (predictions.mayPredict(p, next))
+                        state.add(new EarleyItem(grammar, p, pos));
+        }
+    }
+
+    // add the advance of prev over child to the state
+    private void advance(EarleyState state, EarleyItem prev, ParseForest.Node child) {
+        EarleyItem next = state.add(new EarleyItem(prev));
+        if (! recognizer)
+            next.addDerivation(prev, child);
+    }
+
+    // The item at the top of the deterministic reduction path for sym
+    // completed back to state i: the item waiting for sym there, if it
+    // is the only one and sym is the last it needs, and so on for its
+    // nonterminal, as far as this goes.  Null if there is no such item.
+    // Completions of the start symbol from state 0 are never passed over,
+    // as they are needed to recognize the input.
+    private EarleyItem topmost(int i, int sym) {
+        ArrayList<EarleyState> path = new ArrayList<>();
+        ArrayList<Integer> syms = new ArrayList<>();
+        ArrayList<EarleyItem> items = new ArrayList<>();
+        EarleyItem top = null;
+        BitSet seen = new BitSet(); // symbols on the path within state i
+        while (true) {
+            EarleyState s = states.get(i);
+            if (s.hasTopmost(sym)) {
+                top = s.topmost(sym);
+                break;
+            }
+            EarleyItem x = seen.get(sym) ? null : s.onlyWaiting(sym);
+            seen.set(sym);
+            path.add(s);
+            syms.add(sym);
+            items.add(x);
+            if (x == null || x.start() == 0 && grammar.lhs(x.production()) == grammar.start())
+                break;
+            if (x.start() != i)
+                seen.clear();
+            i = x.start();
+            sym = grammar.lhs(x.production());
+        }
+        for (int k = path.size() - 1; k >= 0; k--) {
+            EarleyItem x = items.get(k);
+            if (x == null)
+                top = null;
+            else if (top == null)
+                top = x;
+            path.get(k).setTopmost(syms.get(k), top);
+        }
+        return top;
+    }
+
+    // Process the pending items in rounds.  In each round, predictions and
+    // completions over non-empty spans (which only read earlier states)
+    // are done in parallel; then indexing and null expansions, which
+    // depend on the order of processing, are done sequentially.
+    private void closeParallel(EarleyState state) {
+        final int pos = state.position();
+        while (state.hasPending()) {
+            ArrayList<EarleyItem> batch = state.drain();
+            pool.invoke(new Expand(state, batch, 0, batch.size()));
+            for (EarleyItem item : batch)
+                if (item.finished()) {
+                    final int end = item.start();
+                    if (end == pos) {
+                        final int nt = grammar.lhs(item.production());
+                        ParseForest.SymbolNode t = state.completion(nt, end);
+                        if (t != null) {
+                            t.addAlternative(item);
+                            continue;
+                        }
+                        t = new ParseForest.SymbolNode(nt, pos, end);
+                        t.addAlternative(item);
+                        state.addCompletion(t);
+                        for (EarleyItem prev : state.waiting(nt))
+                            state.add(new EarleyItem(prev)).addDerivation(prev, t);
+                    }
+                } else {
+                    final int sym = item.current(grammar);
+                    state.index(sym, item);
+                    if (! grammar.isTerminal(sym)) {
+                        ParseForest.SymbolNode t = state.completion(sym, pos);
+                        if (t != null)
+                            state.add(new EarleyItem(item)).addDerivation(item, t);
+                    }
+                }
+        }
+    }
+
+    // the parallel part of processing a batch of items
+    private class Expand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final EarleyState state;
+        private final ArrayList<EarleyItem> batch;
+        private final int lo;
+        private final int hi;
+
+        public Expand(EarleyState state, ArrayList<EarleyItem> batch, int lo, int hi) {
+            this.state = state;
+            this.batch = batch;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo > BATCH) {
+                final int mid = (lo + hi)/2;
+                invokeAll(new Expand(state, batch, lo, mid),
+                    new Expand(state, batch, mid, hi));
+                return;
+            }
+            final int pos = state.position();
+            for (int i = lo; i < hi; i++) {
+                EarleyItem item = batch.get(i);
+                if (item.finished()) {
+                    final int end = item.start();
+                    if (end == pos)
+                        continue;
+                    final int nt = grammar.lhs(item.production());
+                    ParseForest.SymbolNode t = new ParseForest.SymbolNode(nt, pos, end);
+                    ParseForest.SymbolNode old = state.addCompletion(t);
+                    if (old != null)
+                        t = old;
+                    synchronized (t) {
+                        t.addAlternative(item);
+                    }
+                    if (old == null)
+                        for (EarleyItem prev : states.get(end).waiting(nt)) {
+                            EarleyItem next = state.add(new EarleyItem(prev));
+                            synchronized (next) {
+                                next.addDerivation(prev, t);
+                            }
+                        }
+                } else {
+                    final int sym = item.current(grammar);
+                    if (! grammar.isTerminal(sym) && ! item.predicted(grammar))
+                        predict(state, sym);
+                }
+            }
+        }
+    }
+
+    /** Number of symbols scanned. */
+    public int length() {
+        return states.size() - 1;
+    }
+
+    public EarleyState state(int i) {
+        return states.get(i);
+    }
+
+    /** The node for the start symbol over all the input scanned, if any. */
+    public ParseForest.SymbolNode root() {
+        return states.get(length()).completion(grammar.start(), 0);
+    }
+}
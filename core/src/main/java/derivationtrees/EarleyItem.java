@@ -0,0 +1,119 @@
+package derivationtrees;
+
+// scanning right to left
+public class EarleyItem {
+    private final int prod;
+    private final int pos; // position in rhs
+    private final int finish;
+
+    // Derivations of the parsed part of the rhs, in the order found:
+    // each pairs the item this one was advanced from with the forest
+    // node for the symbol just recognized.
+    private Derivation first;
+    private Derivation last;
+
+    /** A link in the list of derivations of an item. */
+    static final class Derivation {
+        final EarleyItem prev;
+        final ParseForest.Node child;
+        private Derivation next;
+
+        Derivation(EarleyItem prev, ParseForest.Node child) {
+            this.prev = prev;
+            this.child = child;
+        }
+
+        Derivation next() {
+            return next;
+        }
+    }
+
+    // item at end of a rhs
+    public EarleyItem(CompiledGrammar grammar, int prod, int finish) {
+        this.prod = prod;
+        this.pos = grammar.rhsLength(prod);
+        this.finish = finish;
+    }
+
+    // advance of item
+    public EarleyItem(EarleyItem prev) {
+        if (prev.finished())
+            throw new IllegalArgumentException("advancing at end");
+        prod = prev.prod;
+        pos = prev.pos - 1;
+        finish = prev.finish;
+    }
+
+    public boolean equals(Object obj) {
+        EarleyItem o = (EarleyItem)obj;
+        return o != null &&
+            finish == o.finish && pos == o.pos && prod == o.prod;
+    }
+
+    public int hashCode() {
+        return 13*finish + 19*pos + 23*prod;
+    }
+
+    public String toString(CompiledGrammar grammar) {
+        StringBuffer s = new StringBuffer();
+        s.append('(').append(grammar.name(grammar.lhs(prod))).append(" -> ");
+        final int base = grammar.rhsStart(prod);
+        for (int i = base; i < base + pos; i++)
+            s.append(grammar.name(grammar.rhsSymbol(i)));
+        s.append('.');
+        for (int i = base + pos; i < grammar.rhsEnd(prod); i++)
+            s.append(grammar.name(grammar.rhsSymbol(i)));
+        s.append(", ");
+        s.append(finish);
+        s.append(')');
+        return s.toString();
+    }
+
+    public boolean finished() {
+        return pos == 0;
+    }
+
+    /** Nothing has been recognized yet. */
+    public boolean predicted(CompiledGrammar grammar) {
+        return pos == grammar.rhsLength(prod);
+    }
+
+    /** Only one symbol remains to be recognized. */
+    public boolean penultimate() {
+        return pos == 1;
+    }
+
+    public boolean match(CompiledGrammar grammar, int sym) {
+        return pos > 0 &&
+            grammar.rhsSymbol(grammar.rhsStart(prod) + pos-1) == sym;
+    }
+
+    public int current(CompiledGrammar grammar) {
+        if (finished())
+            throw new IllegalStateException("current at end");
+        return grammar.rhsSymbol(grammar.rhsStart(prod) + pos-1);
+    }
+
+    public int production() {
+        return prod;
+    }
+
+    public int start() {
+        return finish;
+    }
+
+    /** Record that this item follows prev after recognizing child. */
+    void addDerivation(EarleyItem prev, ParseForest.Node child) {
+        Derivation d = new Derivation(prev, child);
+        if (last == null)
+            first = d;
+        else
+            last.next = d;
+        last = d;
+    }
+
+    /** The first derivation recorded (null for a freshly predicted item). */
+    Derivation derivations() {
+        return first;
+    }
+}
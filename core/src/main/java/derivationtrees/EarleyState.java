@@ -0,0 +1,162 @@
+package derivationtrees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/** One state of an Earley chart: the items ending after a number of
+  input symbols have been scanned, with those still to be processed, indexed by the symbol each
+  is waiting for.
+  A concurrent state allows items and completions to be added from
+  several threads at once, but the index and the empty completions are
+  still only updated by one thread at a time.
+ */
+class EarleyState {
+    private final int pos;
+    private final Map<EarleyItem, EarleyItem> items;
+    private final Queue<EarleyItem> queue;
+    // processed items by the symbol before the dot
+    private final Map<Integer, ArrayList<EarleyItem>> waiting;
+    // nonterminals recognized from here, and those recognized as empty
+    private final Map<ParseForest.SymbolNode, ParseForest.SymbolNode> completions;
+    private final Map<Integer, ParseForest.SymbolNode> empties;
+    // nonterminals whose productions have been predicted here
+    private final BitSet predicted;
+    private final boolean concurrent;
+    // tops of deterministic reduction paths, for recognizers
+    private final Map<Integer, EarleyItem> topmost;
+
+    public EarleyState(int pos, boolean concurrent) {
+        this.pos = pos;
+        if (concurrent) {
+            this.items = new ConcurrentHashMap<>();
+            this.queue = new ConcurrentLinkedQueue<>();
+            this.completions = new ConcurrentHashMap<>();
+        } else {
+            this.items = new HashMap<>();
+            this.queue = new ArrayDeque<>();
+            this.completions = new HashMap<>();
+        }
+        this.concurrent = concurrent;
+        this.predicted = new BitSet();
+        this.waiting = new HashMap<>();
+        this.empties = new HashMap<>();
+        this.topmost = new HashMap<>();
+    }
+
+    public int position() {
+        return pos;
+    }
+
+    /** The canonical copy of item in this state, queueing it if new. */
+    public EarleyItem add(EarleyItem item) {
+        EarleyItem old = items.putIfAbsent(item, item);
+        if (old != null)
+            return old;
+        queue.add(item);
+        return item;
+    }
+
+    /** Record that the productions of nt are predicted here, returning
+      false if they already were. */
+    public boolean predict(int nt) {
+        if (concurrent)
+            synchronized (predicted) {
+                return mark(nt);
+            }
+        return mark(nt);
+    }
+
+    private boolean mark(int nt) {
+        if (predicted.get(nt))
+            return false;
+        predicted.set(nt);
+        return true;
+    }
+
+    public boolean hasPending() {
+        return ! queue.isEmpty();
+    }
+
+    public EarleyItem next() {
+        return queue.remove();
+    }
+
+    /** Take all the items waiting to be processed. */
+    public ArrayList<EarleyItem> drain() {
+        ArrayList<EarleyItem> batch = new ArrayList<>();
+        EarleyItem item;
+        while ((item = queue.poll()) != null)
+            batch.add(item);
+        return batch;
+    }
+
+    /** Record that a processed item is waiting for a symbol. */
+    public void index(int sym, EarleyItem item) {
+        ArrayList<EarleyItem> list = waiting.get(sym);
+        if (list == null) {
+            list = new ArrayList<>();
+            waiting.put(sym, list);
+        }
+        list.add(item);
+    }
+
+    /** Processed items waiting for a symbol. */
+    public Collection<EarleyItem> waiting(int sym) {
+        ArrayList<EarleyItem> list = waiting.get(sym);
+        return list == null ? Collections.<EarleyItem>emptyList() : list;
+    }
+
+    /** The only processed item waiting for sym, if sym is the last
+      symbol it needs, or else null. */
+    public EarleyItem onlyWaiting(int sym) {
+        ArrayList<EarleyItem> list = waiting.get(sym);
+        if (list == null || list.size() != 1 || ! list.get(0).penultimate())
+            return null;
+        return list.get(0);
+    }
+
+    /** Whether the top of the reduction path for sym has been recorded. */
+    public boolean hasTopmost(int sym) {
+        return topmost.containsKey(sym);
+    }
+
+    /** The recorded top of the reduction path for sym (possibly null). */
+    public EarleyItem topmost(int sym) {
+        return topmost.get(sym);
+    }
+
+    public void setTopmost(int sym, EarleyItem item) {
+        topmost.put(sym, item);
+    }
+
+    /** The node for a nonterminal recognized from here to finish, if any. */
+    public ParseForest.SymbolNode completion(int nt, int finish) {
+        if (finish == pos)
+            return empties.get(nt);
+        return completions.get(new ParseForest.SymbolNode(nt, pos, finish));
+    }
+
+    /** Add the node for a nonterminal recognized from here, unless there
+      is one already, which is returned. */
+    public ParseForest.SymbolNode addCompletion(ParseForest.SymbolNode node) {
+        if (node.finish() == pos)
+            return empties.putIfAbsent(node.nonTerminal(), node);
+        return completions.putIfAbsent(node, node);
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public Collection<EarleyItem> items() {
+        return items.keySet();
+    }
+}
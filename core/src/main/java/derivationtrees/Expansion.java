@@ -0,0 +1,129 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+
+class Expansion {
+    private final CompiledGrammar grammar;
+    private final int limit;
+    private final TerminalTree[] leaves;
+
+    // Indexed by nonterminal.  Each list holds the trees up to the current
+    // depth, with those new at this depth at the end, from oldSize on.
+    private final ArrayList<ArrayList<NonTerminalTree>> lgges;
+    private final int[] oldSize;
+    private int count;
+    private int weight; // of the trees in lgges
+    private int expandCount;
+
+    public Expansion(Grammar grammar, int limit) {
+        this(new CompiledGrammar(grammar), limit);
+    }
+
+    /** Empty language for each nonterminal. */
+    public Expansion(CompiledGrammar grammar, int limit) {
+        this.grammar = grammar;
+        this.limit = limit;
+
+        leaves = new TerminalTree[grammar.symbolCount()];
+        for (int sym = grammar.nonTerminalCount(); sym < grammar.symbolCount(); sym++)
+            leaves[sym] = new TerminalTree(grammar.name(sym));
+
+        count = 0;
+        weight = 0;
+        expandCount = 0;
+        lgges = new ArrayList<>();
+        for (int nt = 0; nt < grammar.nonTerminalCount(); nt++)
+            lgges.add(new ArrayList<NonTerminalTree>());
+        oldSize = new int[grammar.nonTerminalCount()];
+    }
+
+    /** Given a set of trees up to depth n, update to trees up to depth n+1.
+      Only combinations including a tree new at depth n are built, as
+      the others are already present.  The budget is charged as if the
+      whole set were rebuilt.
+     */
+    public final boolean expand() {
+        int newCount = count + weight;
+        int newWeight = weight;
+        ArrayList<ArrayList<NonTerminalTree>> additions = new ArrayList<>();
+        for (int nt = 0; nt < grammar.nonTerminalCount(); nt++) {
+            final String name = grammar.name(nt);
+            ArrayList<NonTerminalTree> ts = new ArrayList<>();
+            for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++) {
+                boolean hasNonTerminal = false;
+                for (int i = grammar.rhsStart(p); i < grammar.rhsEnd(p); i++)
+                    if (! grammar.isTerminal(grammar.rhsSymbol(i))) {
+                        hasNonTerminal = true;
+                        // trees for which the first new subtree is at i
+                        for (Cons<ParseTree> str : combinations(p, i))
+                            ts.add(new NonTerminalTree(name, Cons.iterable(str)));
+                    }
+                if (! hasNonTerminal && expandCount == 0)
+                    ts.add(new NonTerminalTree(name,
+                        Cons.iterable(combinations(p, -1).get(0))));
+            }
+            for (NonTerminalTree t : ts) {
+                newCount = newCount + t.height()*t.width();
+                newWeight = newWeight + t.height()*t.width();
+                if (newCount > limit)
+                    return false;
+            }
+            additions.add(ts);
+        }
+        for (int nt = 0; nt < grammar.nonTerminalCount(); nt++) {
+            oldSize[nt] = lgges.get(nt).size();
+            lgges.get(nt).addAll(additions.get(nt));
+        }
+        count = newCount;
+        weight = newWeight;
+        expandCount++;
+        return true;
+    }
+
+    // Subtrees for the rhs of p in which the symbol at index first is new
+    // at the current depth, those before it are old and those after it are
+    // any trees up to the current depth.
+    private ArrayList<Cons<ParseTree>> combinations(int p, int first) {
+        ArrayList<Cons<ParseTree>> strs = new ArrayList<>();
+        strs.add(null);
+        for (int i = grammar.rhsEnd(p) - 1; i >= grammar.rhsStart(p); i--) {
+            final int sym = grammar.rhsSymbol(i);
+            if (grammar.isTerminal(sym)) {
+                ParseTree t = leaves[sym];
+                for (int j = 0; j < strs.size(); j++)
+                    strs.set(j, new Cons<>(t, strs.get(j)));
+            } else {
+                ArrayList<NonTerminalTree> exps = lgges.get(sym);
+                final int lo = i == first ? oldSize[sym] : 0;
+                final int hi = i < first ? oldSize[sym] : exps.size();
+                ArrayList<Cons<ParseTree>> new_strs = new ArrayList<>();
+                for (int k = lo; k < hi; k++)
+                    for (Cons<ParseTree> str : strs)
+                        new_strs.add(new Cons<>((ParseTree)exps.get(k), str));
+                strs = new_strs;
+            }
+        }
+        return strs;
+    }
+
+    public ArrayList<NonTerminalTree> derivations(String nt) {
+        return new ArrayList<>(lgges.get(grammar.symbol(nt)));
+    }
+
+    /** Derivations of nt first found by the last expansion. */
+    public ArrayList<NonTerminalTree> newDerivations(String nt) {
+        ArrayList<NonTerminalTree> ts = lgges.get(grammar.symbol(nt));
+        return new ArrayList<>(ts.subList(oldSize[grammar.symbol(nt)], ts.size()));
+    }
+
+    public final int depth() {
+        return expandCount;
+    }
+
+    public final int size() {
+        int n = 0;
+        for (ArrayList<NonTerminalTree> ts : lgges)
+            n = n + ts.size();
+        return n;
+    }
+}
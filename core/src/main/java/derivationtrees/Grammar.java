@@ -1,3 +1,5 @@
+package derivationtrees;
+
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
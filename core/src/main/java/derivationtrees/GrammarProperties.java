@@ -0,0 +1,376 @@
+package derivationtrees;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+/** Statically computable properties of a grammar. */
+public class GrammarProperties {
+    private final CompiledGrammar grammar;
+    // sets of nonterminal numbers
+    private final BitSet unreachable;
+    private final BitSet unrealizable;
+    private final BitSet nullable;
+    private final BitSet cyclic;
+    // for each nonterminal, sets of terminal numbers: those that can begin
+    // or end its strings, and those that can follow or precede it
+    private final BitSet[] first;
+    private final BitSet[] last;
+    private final BitSet[] follow;
+    private final BitSet[] precede;
+    // productions containing each nonterminal, once per occurrence
+    private final int[] occurrenceStart;
+    private final int[] occurrences;
+
+    public GrammarProperties(Grammar grammar) {
+        this(new CompiledGrammar(grammar));
+    }
+
+    public GrammarProperties(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        int n = grammar.nonTerminalCount();
+        occurrenceStart = new int[n+1];
+        for (int p = 0; p < grammar.productionCount(); p++)
+            for (int i = grammar.rhsStart(p); i < grammar.rhsEnd(p); i++)
+                if (! grammar.isTerminal(grammar.rhsSymbol(i)))
+                    occurrenceStart[grammar.rhsSymbol(i)+1]++;
+        for (int nt = 0; nt < n; nt++)
+            occurrenceStart[nt+1] += occurrenceStart[nt];
+        occurrences = new int[occurrenceStart[n]];
+        int[] fill = Arrays.copyOf(occurrenceStart, n);
+        for (int p = 0; p < grammar.productionCount(); p++)
+            for (int i = grammar.rhsStart(p); i < grammar.rhsEnd(p); i++)
+                if (! grammar.isTerminal(grammar.rhsSymbol(i)))
+                    occurrences[fill[grammar.rhsSymbol(i)]++] = p;
+        this.unreachable = computeUnreachable();
+        this.unrealizable = computeUnrealizable();
+        this.nullable = computeNullable();
+        this.cyclic = computeCyclic();
+        this.first = computeEnds(false);
+        this.last = computeEnds(true);
+        this.follow = computeNeighbours(first, false);
+        this.precede = computeNeighbours(last, true);
+    }
+
+    /** Nonterminals that cannot be reached from the start symbol. */
+    public Set<String> getUnreachable() {
+        return names(unreachable);
+    }
+
+    /** Nonterminals that do not generate any strings. */
+    public Set<String> getUnrealizable() {
+        return names(unrealizable);
+    }
+
+    /** Nonterminals that can generate the null string. */
+    public Set<String> getNullable() {
+        return names(nullable);
+    }
+
+    /** Nonterminals that can derive themselves. */
+    public Set<String> getCyclic() {
+        return names(cyclic);
+    }
+
+    /** Terminals that can begin a string generated by a nonterminal. */
+    public Set<String> getFirst(String nt) {
+        return names(first[nonTerminal(nt)]);
+    }
+
+    /** Terminals that can follow a nonterminal in a sentential form. */
+    public Set<String> getFollow(String nt) {
+        return names(follow[nonTerminal(nt)]);
+    }
+
+    /** Terminals that can end a string generated by a nonterminal: the
+      FIRST set for a parser working from right to left. */
+    public Set<String> getLast(String nt) {
+        return names(last[nonTerminal(nt)]);
+    }
+
+    /** Terminals that can precede a nonterminal in a sentential form:
+      the FOLLOW set for a parser working from right to left. */
+    public Set<String> getPrecede(String nt) {
+        return names(precede[nonTerminal(nt)]);
+    }
+
+    /** Terminals (by number) that can end a string generated by a
+      nonterminal of the compiled grammar.  The set is not to be changed. */
+    BitSet last(int nt) {
+        return last[nt];
+    }
+
+    /** Whether a symbol of the compiled grammar can generate the null string. */
+    public boolean isNullable(int sym) {
+        return nullable.get(sym);
+    }
+
+    /** Whether a symbol of the compiled grammar can derive itself. */
+    public boolean isCyclic(int sym) {
+        return cyclic.get(sym);
+    }
+
+    /** Some strings have infinitely many derivations.
+      This occurs if and only if a cyclic nonterminal is both reachable
+      and realizable.
+     */
+    public boolean infinitelyAmbiguous() {
+        BitSet useful = (BitSet)cyclic.clone();
+        useful.andNot(unreachable);
+        useful.andNot(unrealizable);
+        return ! useful.isEmpty();
+    }
+
+    private final BitSet computeUnreachable() {
+        BitSet reachable = new BitSet();
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(grammar.start());
+        while (! queue.isEmpty()) {
+            int nt = queue.remove();
+            if (! reachable.get(nt)) {
+                reachable.set(nt);
+                for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++)
+                    for (int i = grammar.rhsStart(p); i < grammar.rhsEnd(p); i++)
+                        if (! grammar.isTerminal(grammar.rhsSymbol(i)))
+                            queue.add(grammar.rhsSymbol(i));
+            }
+        }
+        return complement(reachable);
+    }
+
+    private final BitSet computeUnrealizable() {
+        return complement(derivable(true));
+    }
+
+    private final BitSet computeNullable() {
+        return derivable(false);
+    }
+
+    /** Nonterminals with a production whose right hand side consists
+      of such nonterminals, and also of terminals if terminalsCount.
+      Each production counts down the symbols it is still waiting for,
+      so each occurrence of a symbol is visited once.
+     */
+    private final BitSet derivable(boolean terminalsCount) {
+        int[] remaining = new int[grammar.productionCount()];
+        int[] ready = new int[grammar.productionCount()];
+        int top = 0;
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            for (int i = grammar.rhsStart(p); i < grammar.rhsEnd(p); i++)
+                if (! (terminalsCount && grammar.isTerminal(grammar.rhsSymbol(i))))
+                    remaining[p]++;
+            if (remaining[p] == 0)
+                ready[top++] = p;
+        }
+        BitSet result = new BitSet();
+        while (top > 0) {
+            int nt = grammar.lhs(ready[--top]);
+            if (! result.get(nt)) {
+                result.set(nt);
+                for (int j = occurrenceStart[nt]; j < occurrenceStart[nt+1]; j++)
+                    if (--remaining[occurrences[j]] == 0)
+                        ready[top++] = occurrences[j];
+            }
+        }
+        return result;
+    }
+
+    /** Terminals that can begin (or if fromEnd, end) strings generated by
+      each nonterminal.  A production is looked at again whenever the set
+      of a nonterminal in its right hand side grows.
+     */
+    private final BitSet[] computeEnds(boolean fromEnd) {
+        final int n = grammar.nonTerminalCount();
+        BitSet[] sets = new BitSet[n];
+        for (int nt = 0; nt < n; nt++)
+            sets[nt] = new BitSet();
+        Queue<Integer> queue = new ArrayDeque<>();
+        BitSet queued = new BitSet();
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            queue.add(p);
+            queued.set(p);
+        }
+        while (! queue.isEmpty()) {
+            final int p = queue.remove();
+            queued.clear(p);
+            BitSet s = sets[grammar.lhs(p)];
+            final int before = s.cardinality();
+            final int len = grammar.rhsLength(p);
+            for (int k = 0; k < len; k++) {
+                final int sym = grammar.rhsSymbol(fromEnd ?
+                    grammar.rhsEnd(p) - 1 - k : grammar.rhsStart(p) + k);
+                if (grammar.isTerminal(sym)) {
+                    s.set(sym);
+                    break;
+                }
+                s.or(sets[sym]);
+                if (! nullable.get(sym))
+                    break;
+            }
+            final int nt = grammar.lhs(p);
+            if (s.cardinality() != before)
+                for (int j = occurrenceStart[nt]; j < occurrenceStart[nt+1]; j++)
+                    if (! queued.get(occurrences[j])) {
+                        queue.add(occurrences[j]);
+                        queued.set(occurrences[j]);
+                    }
+        }
+        return sets;
+    }
+
+    /** Terminals that can follow (or if fromEnd, precede) each nonterminal,
+      given the sets of terminals that can begin (or end) their strings.
+      The productions of a nonterminal are looked at again whenever its
+      set grows.
+     */
+    private final BitSet[] computeNeighbours(BitSet[] ends, boolean fromEnd) {
+        final int n = grammar.nonTerminalCount();
+        BitSet[] sets = new BitSet[n];
+        for (int nt = 0; nt < n; nt++)
+            sets[nt] = new BitSet();
+        Queue<Integer> queue = new ArrayDeque<>();
+        BitSet queued = new BitSet();
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            queue.add(p);
+            queued.set(p);
+        }
+        while (! queue.isEmpty()) {
+            final int p = queue.remove();
+            queued.clear(p);
+            // terminals that can come after the rest of the rhs
+            BitSet after = (BitSet)sets[grammar.lhs(p)].clone();
+            final int len = grammar.rhsLength(p);
+            for (int k = 0; k < len; k++) {
+                final int sym = grammar.rhsSymbol(fromEnd ?
+                    grammar.rhsStart(p) + k : grammar.rhsEnd(p) - 1 - k);
+                if (grammar.isTerminal(sym)) {
+                    after.clear();
+                    after.set(sym);
+                    continue;
+                }
+                BitSet s = sets[sym];
+                final int before = s.cardinality();
+                s.or(after);
+                if (s.cardinality() != before)
+                    for (int q = grammar.firstProduction(sym); q < grammar.endProduction(sym); q++)
+                        if (! queued.get(q)) {
+                            queue.add(q);
+                            queued.set(q);
+                        }
+                if (nullable.get(sym))
+                    after.or(ends[sym]);
+                else
+                    after = (BitSet)ends[sym].clone();
+            }
+        }
+        return sets;
+    }
+
+    /** Nonterminals lying on a cycle of trivial expansions, i.e. in a
+      strongly connected component with more than one member or with
+      a trivial expansion to itself (Tarjan's algorithm, iteratively).
+     */
+    private final BitSet computeCyclic() {
+        int n = grammar.nonTerminalCount();
+        int[] edgeStart = new int[n+1];
+        int[] edges = new int[occurrences.length];
+        BitSet selfLoop = new BitSet();
+        int e = 0;
+        for (int nt = 0; nt < n; nt++) {
+            edgeStart[nt] = e;
+            for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++) {
+                int nonNullCount = 0;
+                int nonNull = -1;
+                for (int i = grammar.rhsStart(p); i < grammar.rhsEnd(p); i++)
+                    if (! nullable.get(grammar.rhsSymbol(i))) {
+                        nonNullCount++;
+                        nonNull = grammar.rhsSymbol(i);
+                    }
+                if (nonNullCount == 0)
+                    for (int i = grammar.rhsStart(p); i < grammar.rhsEnd(p); i++)
+                        edges[e++] = grammar.rhsSymbol(i);
+                else if (nonNullCount == 1 && ! grammar.isTerminal(nonNull))
+                    edges[e++] = nonNull;
+            }
+            for (int j = edgeStart[nt]; j < e; j++)
+                if (edges[j] == nt)
+                    selfLoop.set(nt);
+        }
+        edgeStart[n] = e;
+
+        BitSet cyclic = new BitSet();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] next = new int[n];
+        int[] component = new int[n];
+        int[] path = new int[n];
+        BitSet onComponent = new BitSet();
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int size = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0)
+                continue;
+            int depth = 0;
+            path[depth++] = root;
+            index[root] = low[root] = counter++;
+            next[root] = edgeStart[root];
+            component[size++] = root;
+            onComponent.set(root);
+            while (depth > 0) {
+                int v = path[depth-1];
+                if (next[v] < edgeStart[v+1]) {
+                    int w = edges[next[v]++];
+                    if (index[w] < 0) {
+                        path[depth++] = w;
+                        index[w] = low[w] = counter++;
+                        next[w] = edgeStart[w];
+                        component[size++] = w;
+                        onComponent.set(w);
+                    } else if (onComponent.get(w))
+                        low[v] = Math.min(low[v], index[w]);
+                } else {
+                    depth--;
+                    if (depth > 0)
+                        low[path[depth-1]] = Math.min(low[path[depth-1]], low[v]);
+                    if (low[v] == index[v]) {
+                        boolean loop = component[size-1] != v || selfLoop.get(v);
+                        int w;
+                        do {
+                            w = component[--size];
+                            onComponent.clear(w);
+                            if (loop)
+                                cyclic.set(w);
+                        } while (w != v);
+                    }
+                }
+            }
+        }
+        return cyclic;
+    }
+
+    private final BitSet complement(BitSet s) {
+        BitSet rest = new BitSet();
+        rest.set(0, grammar.nonTerminalCount());
+        rest.andNot(s);
+        return rest;
+    }
+
+    private final int nonTerminal(String name) {
+        final int nt = grammar.symbol(name);
+        if (nt < 0 || grammar.isTerminal(nt))
+            throw new IllegalArgumentException("not a nonterminal: " + name);
+        return nt;
+    }
+
+    private final Set<String> names(BitSet s) {
+        Set<String> result = new HashSet<>();
+        for (int nt = s.nextSetBit(0); nt >= 0; nt = s.nextSetBit(nt+1))
+            result.add(grammar.name(nt));
+        return result;
+    }
+
+}
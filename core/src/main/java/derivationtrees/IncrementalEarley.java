@@ -0,0 +1,67 @@
+package derivationtrees;
+
+import java.io.IOException;
+
+/** Earley parser that reads its input from left to right, one symbol at
+  a time, keeping the chart between symbols.
+  This is the right to left parser run on the reversed grammar, with
+  the trees mirrored as they are extracted.
+ */
+public class IncrementalEarley {
+    private final CompiledGrammar reversed;
+    private EarleyChart chart;
+    private int length;
+
+    public IncrementalEarley(Grammar grammar) {
+        this(new CompiledGrammar(grammar));
+    }
+
+    public IncrementalEarley(CompiledGrammar grammar) {
+        this.reversed = grammar.reversed();
+        this.chart = new EarleyChart(new PredictionTable(reversed));
+        this.length = 0;
+    }
+
+    /** Add the next input symbol.
+      Returns false if the input so far is not a prefix of any sentence,
+      after which further symbols are counted but not parsed.
+     */
+    public boolean feed(String token) {
+        return feed(reversed.symbol(token));
+    }
+
+    /** Add the next input symbol, given as a symbol number of the grammar
+      (-1 if it is not a symbol of the grammar).
+     */
+    public boolean feed(int sym) {
+        length++;
+        if (chart != null && ! chart.scan(sym))
+            chart = null; // drop the chart: nothing can match any more
+        return chart != null;
+    }
+
+    /** Add all the symbols read from input. */
+    public boolean feed(Tokenizer input) throws IOException {
+        for (int sym = input.next(); sym != Tokenizer.END; sym = input.next())
+            feed(sym);
+        return chart != null;
+    }
+
+    /** The input so far is a prefix of some sentential form of the
+      grammar (and so of some sentence, if every nonterminal is
+      realizable). */
+    public boolean isAcceptingPrefix() {
+        return chart != null;
+    }
+
+    /** Number of symbols fed so far. */
+    public int length() {
+        return length;
+    }
+
+    /** Derivations of the input so far as a complete sentence. */
+    public ParseForest results() {
+        return new ParseForest(reversed,
+            chart == null ? null : chart.root(), true);
+    }
+}
@@ -0,0 +1,393 @@
+package derivationtrees;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+public class Main {
+    private static final int LIMIT = 10000;
+    // trees of the start symbol when written in chunks
+    private static final BigInteger PAGED_LIMIT = BigInteger.valueOf(1000000);
+
+    private final static char EMPTY = '\u03b5';
+
+    // The depth to which to show the trees of the start symbol, found by
+    // counting: where the number of trees stops growing, or else the
+    // greatest depth up to maxDepth with at most PAGED_LIMIT trees.
+    private static class Depth {
+        int depth;
+        boolean finite;
+
+        Depth(CompiledGrammar grammar, Counting counting, int maxDepth) {
+            depth = 0;
+            finite = false;
+            BigInteger lastSize = BigInteger.ZERO;
+            while (depth < maxDepth) {
+                BigInteger[] counts = counting.derivationsOfDepthAll(depth + 1);
+                if (counts[grammar.start()].compareTo(PAGED_LIMIT) > 0)
+                    break;
+                depth++;
+                BigInteger size = BigInteger.ZERO;
+                for (BigInteger c : counts)
+                    size = size.add(c);
+                if (size.equals(lastSize)) {
+                    finite = true;
+                    break;
+                }
+                lastSize = size;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        // options
+        boolean words = false;
+        Map<String, String> classes = new LinkedHashMap<>();
+        String file = null;
+        BatchParser.Format batch = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Long cacheSize = null;
+        String output = null;
+        boolean shared = false;
+        String pages = null;
+        int chunkSize = 100;
+        int top = 0;
+        int ambiguity = -1;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("-")) {
+            if (args[first].equals("-w"))
+                words = true;
+            else if (args[first].equals("-t") && first+1 < args.length &&
+                    args[first+1].indexOf('=') > 0) {
+                String c = args[++first];
+                classes.put(c.substring(0, c.indexOf('=')),
+                    c.substring(c.indexOf('=') + 1));
+            } else if (args[first].equals("-f") && first+1 < args.length)
+                file = args[++first];
+            else if (args[first].equals("-b") && first+1 < args.length &&
+                    (args[first+1].equals("json") || args[first+1].equals("html")))
+                batch = args[++first].equals("json") ?
+                    BatchParser.Format.JSON : BatchParser.Format.HTML;
+            else if (args[first].equals("-n") && first+1 < args.length)
+                threads = Integer.parseInt(args[++first]);
+            else if (args[first].equals("-p") && first+1 < args.length)
+                pages = args[++first];
+            else if (args[first].equals("-k") && first+1 < args.length)
+                chunkSize = Integer.parseInt(args[++first]);
+            else if (args[first].equals("-m") && first+1 < args.length)
+                top = Integer.parseInt(args[++first]);
+            else if (args[first].equals("-a") && first+1 < args.length)
+                ambiguity = Integer.parseInt(args[++first]);
+            else if (args[first].equals("-s"))
+                shared = true;
+            else if (args[first].equals("-o") && first+1 < args.length)
+                output = args[++first];
+            else if (args[first].equals("-c") && first+1 < args.length)
+                cacheSize = Long.parseLong(args[++first]);
+            else
+                break;
+            first++;
+        }
+        // -o and -p are alternatives, and -b writes no pages
+        if (args.length - first < 2 || chunkSize < 1 || threads < 1 ||
+                cacheSize != null && cacheSize < 1 ||
+                pages != null && (output != null || batch != null)) {
+            System.err.println("usage: [-w [-t terminal=regex]...] [-f file] [-o file[.gz] | -p dir [-k chunk-size]] [-s] [-m max-trees] [-a max-length] lhs rhs ... [sentence]");
+            System.err.println("   or: [-w [-t terminal=regex]...] [-f file] [-o file[.gz]] -b json|html [-n threads] [-c cache-size] lhs rhs ...");
+            System.exit(0);
+        }
+        ParseCache cache = cacheSize == null ? null : new ParseCache(cacheSize);
+        int end = args.length;
+        final String sentence =
+            (args.length - first)%2 == 1 ? args[--end] : null;
+
+        Grammar g = new Grammar();
+        for (int i = first+1; i < end; i = i+2) {
+            String lhs = args[i-1];
+            for (String rhs : args[i].split("[|]", -1))
+                g.addProduction(lhs, words ? wordList(rhs) : symList(rhs));
+        }
+
+        CompiledGrammar compiled = new CompiledGrammar(g);
+        GrammarProperties properties = new GrammarProperties(compiled);
+        Tokenizer.Factory tokenizers = tokenizers(compiled, classes, words);
+
+        if (batch != null) {
+            // sentences, one per line, from the file or standard input
+            BufferedReader in = new BufferedReader(file != null ?
+                reader(file) : new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            PrintWriter out = output(output);
+            if (batch == BatchParser.Format.HTML)
+                startPage(out, g, properties);
+            new BatchParser(compiled, properties, tokenizers, batch, threads, cache).run(in, out);
+            if (batch == BatchParser.Format.HTML)
+                out.println("</html>");
+            out.close();
+            in.close();
+            if (cache != null)
+                System.err.println("cache: " + cache);
+            return;
+        }
+
+        String treeHeading;
+        Iterable<NonTerminalTree> trees;
+        if (sentence != null || file != null) {
+            Earley parser = new Earley(compiled, properties);
+            ArrayList<NonTerminalTree> parses = new ArrayList<>();
+            Reader in = file != null ?
+                reader(file) :
+                new StringReader(sentence);
+            boolean full = parser.parse(tokenizers.tokenizer(in), parses);
+            in.close();
+            treeHeading = derivationsHeading(full, parses.size()) +
+                (file != null ? " of " + file : " for '" + sentence + "'");
+            if (top > 0 && parses.size() > top) {
+                trees = TopTrees.select(parses, top);
+                treeHeading = treeHeading + ", the first " + top;
+            }
+            else {
+                Collections.sort(parses, new NonTerminalTree.Ascending());
+                trees = parses;
+            }
+        } else if (pages != null || top > 0) {
+            // choose the depth by counting, then generate the trees in order
+            Depth depth = new Depth(compiled, new Counting(compiled, properties),
+                g.nonTerminals().size() + 9);
+            trees = new StreamingExpansion(compiled, depth.depth);
+            if (depth.finite)
+                treeHeading = "All derivation trees";
+            else
+                treeHeading = "Derivation trees of depth at most " + depth.depth;
+            if (top > 0) {
+                trees = TopTrees.first(trees, top);
+                treeHeading = treeHeading + ", up to the first " + top;
+            }
+        } else {
+            int maxDepth = g.nonTerminals().size() + 9;
+            Expansion lgges = new Expansion(compiled, LIMIT);
+            boolean finite = false;
+	    int last_size = 0;
+            while (lgges.depth() < maxDepth) {
+                if (! lgges.expand())
+                    break;
+                int size = lgges.size();
+                if (size == last_size) {
+                    finite = true;
+                    break;
+                }
+                last_size = size;
+            }
+            ArrayList<NonTerminalTree> derivations = lgges.derivations(g.getStart());
+            if (finite)
+                treeHeading = "All derivation trees";
+            else
+                treeHeading = "Derivation trees of depth at most " + lgges.depth();
+            Collections.sort(derivations, new NonTerminalTree.Ascending());
+            trees = derivations;
+        }
+
+        // trees written as they are generated, in chunks loaded on demand
+        ChunkedTreeWriter chunks = pages == null ? null :
+            new ChunkedTreeWriter(Paths.get(pages), chunkSize, shared);
+        PrintWriter out = output(pages != null ?
+            Paths.get(pages, "index.html").toString() : output);
+        startPage(out, g, properties);
+        if (ambiguity >= 0)
+            showAmbiguity(out, compiled, ambiguity);
+
+        out.println("<h2>" + treeHeading + "</h2>");
+        if (chunks != null) {
+            for (NonTerminalTree t : trees)
+                chunks.add(t);
+            chunks.finish(out);
+        } else {
+            SVG svg = new SVG(out);
+            if (shared) {
+                // repeated subtrees are drawn once, in definitions at the end
+                SVGDefs defs = new SVGDefs();
+                for (NonTerminalTree t : trees)
+                    t.drawSVG(svg, defs);
+                defs.write(svg);
+            } else
+                for (NonTerminalTree t : trees)
+                    t.drawSVG(svg);
+            svg.flush();
+        }
+
+        out.println("</html>");
+	out.close();
+    }
+
+    // standard output, or the named file, compressed if it ends in .gz
+    private static PrintWriter output(String file) throws IOException {
+        if (file == null)
+            return new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        OutputStream out = Channels.newOutputStream(FileChannel.open(Paths.get(file),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING));
+        if (file.endsWith(".gz"))
+            out = new GZIPOutputStream(out, 1 << 16);
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16));
+    }
+
+    /** Heading for the trees found by the parser. */
+    static String derivationsHeading(boolean full, int count) {
+        if (! full)
+            return "Some of the derivations";
+        else if (count == 0)
+            return "There are no derivations";
+        else if (count == 1)
+            return "Derivation tree";
+        else
+            return "Derivation trees";
+    }
+
+    private static Tokenizer.Factory tokenizers(CompiledGrammar grammar,
+            Map<String, String> classes, boolean words) {
+        if (! classes.isEmpty())
+            return RegexTokenizer.factory(grammar, classes);
+        else if (words)
+            return WhitespaceTokenizer.factory(grammar);
+        else
+            return CharacterTokenizer.factory(grammar);
+    }
+
+    // a UTF-8 file, whatever the platform encoding
+    private static Reader reader(String file) throws IOException {
+        return new InputStreamReader(Files.newInputStream(Paths.get(file)),
+            StandardCharsets.UTF_8);
+    }
+
+    // the page up to the trees
+    private static void startPage(PrintWriter out, Grammar g,
+            GrammarProperties properties) {
+        out.println("<!DOCTYPE html>");
+        out.println("<html>");
+        out.println("<head>");
+        out.println("<meta http-equiv=\"Content-Type\" content=\"text/html; charset=utf-8\"/>");
+        out.println("<link rel=\"stylesheet\" type=\"text/css\" href=\"https://staff.city.ac.uk/~ross/IN1002/css/algorithms.css\"/>");
+        out.println("<title>Derivation trees</title>");
+        out.println("</head>");
+        out.println("<!-- Java version " + System.getProperty("java.version") + " -->");
+        out.println("<h1>Derivation trees</h1>");
+
+        out.println("<h2>Grammar</h2>");
+        showGrammar(out, g);
+
+        if (! properties.getUnreachable().isEmpty() ||
+            ! properties.getUnrealizable().isEmpty() ||
+            ! properties.getCyclic().isEmpty()) {
+            out.println("<p>This grammar has the following problems:");
+            out.println("<ul>");
+            report(out, properties.getUnreachable(), "unreachable from the start symbol " + g.getStart());
+            report(out, properties.getUnrealizable(), "unrealizable (cannot generate any strings)");
+            report(out, properties.getCyclic(),
+                properties.infinitelyAmbiguous() ?
+                    "cyclic, so some strings have infinitely many derivations" :
+                    "cyclic");
+            out.println("</ul>");
+        }
+    }
+
+    // a shortest ambiguous sentence, if there is one up to maxLength
+    private static void showAmbiguity(PrintWriter out, CompiledGrammar g,
+            int maxLength) {
+        NonTerminalTree[] w = new Ambiguity(g).shortest(maxLength);
+        out.println("<h2>Ambiguity</h2>");
+        if (w == null) {
+            out.println("<p>No sentence of up to " + maxLength +
+                " symbols has more than one derivation tree.");
+            return;
+        }
+        out.println("<p>A shortest ambiguous sentence is '" + w[0].sentence() +
+            "', with derivation trees including:");
+        SVG svg = new SVG(out);
+        w[0].drawSVG(svg);
+        w[1].drawSVG(svg);
+        svg.flush();
+    }
+
+    private static ArrayList<String> symList(String s) {
+        ArrayList<String> exp = new ArrayList<>();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (! Character.isWhitespace(c) && c != EMPTY)
+                exp.add(String.valueOf(c));
+        }
+        return exp;
+    }
+
+    private static ArrayList<String> wordList(String s) {
+        ArrayList<String> exp = new ArrayList<>();
+        for (String w : s.trim().split("\\s+"))
+            if (! w.isEmpty() && ! w.equals(String.valueOf(EMPTY)))
+                exp.add(w);
+        return exp;
+    }
+
+    private static void showGrammar(PrintWriter out, Grammar g) {
+        out.println("<ul class=\"plain\">");
+        for (String lhs : g.nonTerminals()) {
+            out.print("<li>");
+            out.print(lhs);
+            out.print(" &#x2192; ");
+            boolean firstAlt = true;
+            for (ArrayList<String> alt : g.expansions(lhs)) {
+                if (firstAlt)
+                    firstAlt = false;
+                else
+                    out.print(" | ");
+                if (alt.size() == 0)
+                    out.print("&#x03B5;");
+                else {
+                    boolean firstSym = true;
+                    for (String s : alt) {
+                        if (firstSym)
+                            firstSym = false;
+                        else
+                            out.print(" ");
+                        out.print(s);
+                    }
+                }
+            }
+            out.println();
+        }
+        out.println("</ul>");
+    }
+
+    private static void report(PrintWriter out, Set<String> s, String label) {
+        if (! s.isEmpty()) {
+            out.print("<li>");
+            out.print(s.size() == 1 ? "Nonterminal " : "Nonterminals ");
+            boolean comma = false;
+            for (String nt : s) {
+                if (comma)
+                    out.print(", ");
+                out.print(nt);
+                comma = true;
+            }
+            out.print(s.size() == 1 ? " is " : " are ");
+            out.print(label);
+            out.println(".");
+        }
+    }
+}
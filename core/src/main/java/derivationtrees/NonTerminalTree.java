@@ -0,0 +1,372 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+
+public class NonTerminalTree extends ParseTree {
+    private static final String SYMBOL_COLOUR = "#cc0000";
+    private static final String LINE_COLOUR = "black";
+    private static final String NULL_COLOUR = "#aaaaaa";
+    private static final String NULL_SYMBOL = "&#x03B5;";
+
+    private final String sym;
+    private final Iterable<ParseTree> children;
+
+    // derived values
+    private final int ht;
+    private final int wd;
+    private final int len;
+    private final int nodes;
+    private final int hash;
+    private String sentence; // built on demand
+
+    public NonTerminalTree(String sym, Iterable<ParseTree> children) {
+        this.sym = sym;
+        this.children = children;
+
+        int h = 1;
+        int w = 0;
+        int l = 0;
+        int n = 1;
+        int hc = sym.hashCode();
+        for (ParseTree t : children) {
+            h = Math.max(h, t.height());
+            w = w + t.width();
+            n = n + t.nodeCount();
+            if (t.sentenceLength() > 0)
+                l = l == 0 ? t.sentenceLength() : l + 1 + t.sentenceLength();
+            hc = 31*hc + t.hashCode();
+        }
+        ht = h+1;
+        wd = Math.max(1, w);
+        len = l;
+        nodes = n;
+        hash = hc;
+    }
+
+    public int height() {
+        return ht;
+    }
+
+    public int width() {
+        return wd;
+    }
+
+    public String shortName() {
+        return sym;
+    }
+
+    public String nonTerminal() {
+        return sym;
+    }
+
+    /** The terminals at the leaves, separated by spaces. */
+    public String sentence() {
+        if (sentence == null) {
+            StringBuffer buff = new StringBuffer(len);
+            for (ParseTree t : children)
+                t.addSentence(buff);
+            sentence = buff.toString();
+        }
+        return sentence;
+    }
+
+    protected final int nodeCount() {
+        return nodes;
+    }
+
+    protected final int sentenceLength() {
+        return len;
+    }
+
+    protected final void addSentence(StringBuffer s) {
+        if (sentence != null) {
+            if (len > 0 && s.length() > 0)
+                s.append(' ');
+            s.append(sentence);
+        } else
+            for (ParseTree t : children)
+                t.addSentence(s);
+    }
+
+    public boolean equals(Object obj) {
+        if (obj == this)
+            return true;
+        if (obj instanceof NonTerminalTree) {
+            NonTerminalTree o = (NonTerminalTree)obj;
+            if (hash != o.hash || len != o.len || ! sym.equals(o.sym))
+                return false;
+            Iterator<ParseTree> i = children.iterator();
+            Iterator<ParseTree> j = o.children.iterator();
+            while (i.hasNext() && j.hasNext()) {
+                ParseTree a = i.next();
+                ParseTree b = j.next();
+                if (a != b && ! a.equals(b))
+                    return false;
+            }
+            return ! i.hasNext() && ! j.hasNext();
+        }
+        return false;
+    }
+
+    public int hashCode() {
+        return hash;
+    }
+
+    // draw this node, with its children already drawn with their roots
+    // at the first n elements of childX
+    private void drawNode(SVG out, int rx, int y, int[] childX, int n) {
+        final int ty = y + VSEP;
+        out.text(rx, y, SYMBOL_COLOUR, sym);
+        if (n == 0) {
+            out.text(rx, ty, NULL_COLOUR, NULL_SYMBOL);
+            out.startLines(NULL_COLOUR);
+            out.line(rx, y+BOTTOM, rx, ty-TOP);
+            out.endLines();
+        } else {
+            out.startLines(LINE_COLOUR);
+            for (int i = 0; i < n; i++)
+                out.line(rx, y+BOTTOM, childX[i], ty-TOP);
+            out.endLines();
+        }
+    }
+
+    /** Write the tree as an SVG image on a line of its own. */
+    public void drawSVG(Appendable out) {
+        SVG svg = new SVG(out);
+        drawSVG(svg);
+        svg.flush();
+    }
+
+    /** Write the tree as an SVG image on a line of its own, using a
+      writer that may be shared with other trees. */
+    public void drawSVG(SVG svg) {
+        startImage(svg);
+        new Layout(this, HSEP/2, 30).draw(svg);
+        svg.endTag("svg");
+        svg.newline();
+    }
+
+    /** Write the tree as an SVG image on a line of its own, with its
+      nonterminal subtrees drawn as references to definitions in defs,
+      which must be written to the same page.
+     */
+    public void drawSVG(SVG svg, SVGDefs defs) {
+        for (ParseTree t : children)
+            if (t instanceof NonTerminalTree)
+                ((NonTerminalTree)t).define(defs, height() - 1);
+        startImage(svg);
+        drawShared(svg, defs, HSEP/2, 30, height());
+        svg.endTag("svg");
+        svg.newline();
+    }
+
+    // Add definitions of this tree at levels and its nonterminal
+    // subtrees, children first, without recursion.
+    private void define(SVGDefs defs, int levels) {
+        if (defs.get(this, levels) != null)
+            return;
+        ArrayList<NonTerminalTree> path = new ArrayList<>();
+        ArrayList<Iterator<ParseTree>> next = new ArrayList<>();
+        path.add(this);
+        next.add(children.iterator());
+        while (! path.isEmpty()) {
+            int top = path.size() - 1;
+            NonTerminalTree undefined = null;
+            while (undefined == null && next.get(top).hasNext()) {
+                ParseTree t = next.get(top).next();
+                if (t instanceof NonTerminalTree &&
+                        defs.get((NonTerminalTree)t, levels - top - 1) == null)
+                    undefined = (NonTerminalTree)t;
+            }
+            if (undefined != null) {
+                path.add(undefined);
+                next.add(undefined.children.iterator());
+            } else {
+                NonTerminalTree t = path.remove(top);
+                next.remove(top);
+                if (defs.get(t, levels - top) == null) {
+                    int id = defs.nextId();
+                    defs.svg.startSymbol(defs.prefix(), id);
+                    int rx = t.drawShared(defs.svg, defs, 0, 0, levels - top);
+                    defs.svg.endSymbol();
+                    defs.add(t, levels - top, rx);
+                }
+            }
+        }
+    }
+
+    // draw the root node at (x, y) with its leaf children, referring to
+    // the definitions of its other children, and return its x-coordinate
+    private int drawShared(SVG out, SVGDefs defs, int x, int y, int levels) {
+        final int ty = y + VSEP;
+        int n = 0;
+        int tx = x;
+        for (ParseTree t : children) {
+            if (n == defs.childX.length)
+                defs.childX = Arrays.copyOf(defs.childX, 2*n);
+            if (t instanceof NonTerminalTree) {
+                SVGDefs.Entry e = defs.get((NonTerminalTree)t, levels-1);
+                out.use(defs.prefix(), e.id, tx, ty);
+                defs.childX[n] = tx + e.rootX;
+            } else
+                defs.childX[n] = ((TerminalTree)t).draw(out, tx, ty, levels-1);
+            n++;
+            tx = tx + t.width()*HSEP;
+        }
+        int rx = n == 0 ? x : (defs.childX[(n-1)/2] + defs.childX[n/2])/2;
+        drawNode(out, rx, y, defs.childX, n);
+        return rx;
+    }
+
+    // the image and its background, to be followed by the tree
+    private void startImage(SVG svg) {
+        svg.startTag("svg");
+        svg.attribute("width", width()*HSEP);
+        svg.attribute("height", height()*VSEP + STRIP_HEIGHT);
+        svg.attribute("xmlns", "http://www.w3.org/2000/svg");
+        svg.attribute("version", "1.1");
+        svg.attribute("font-family", "sans-serif");
+        svg.attribute("font-size", 15);
+        svg.closeBracket();
+        svg.startTag("rect");
+        svg.attribute("width", width()*HSEP);
+        svg.attribute("height", height()*VSEP);
+        svg.attribute("fill", "#fff7db");
+        svg.closeEmpty();
+        svg.startTag("rect");
+        svg.attribute("y", height()*VSEP);
+        svg.attribute("width", width()*HSEP);
+        svg.attribute("height", STRIP_HEIGHT);
+        svg.attribute("fill", "#f0e6bc");
+        svg.closeEmpty();
+    }
+
+    // Positions of the nodes of a tree in post-order, computed without
+    // recursion, so the tree can be drawn in one sweep with each node
+    // after its children.  Subtrees are contiguous, ending at their root.
+    private static final class Layout {
+        private final ParseTree[] node;
+        private final int[] rootX; // x-coordinate of the node
+        private final int[] y;
+        private final int[] levels; // levels to the bottom, for leaves
+        private final int[] size; // of subtree
+        private final int[] arity;
+        private int count;
+
+        Layout(NonTerminalTree tree, int x0, int y0) {
+            int n = tree.nodeCount();
+            node = new ParseTree[n];
+            rootX = new int[n];
+            y = new int[n];
+            levels = new int[n];
+            size = new int[n];
+            arity = new int[n];
+            count = 0;
+
+            // path from the root to the current node
+            int h = tree.height();
+            NonTerminalTree[] pathTree = new NonTerminalTree[h];
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Iterator<ParseTree>[] pathNext = new Iterator[h];
+            int[] pathX = new int[h];   // left edge of the subtree
+            int[] pathTx = new int[h];  // left edge of the next child
+            int[] pathY = new int[h];
+            int[] pathStart = new int[h];
+            int[] pathArity = new int[h];
+            int depth = 0;
+            pathTree[0] = tree;
+            pathNext[0] = tree.children.iterator();
+            pathX[0] = pathTx[0] = x0;
+            pathY[0] = y0;
+            pathStart[0] = 0;
+            pathArity[0] = 0;
+            depth = 1;
+            while (depth > 0) {
+                int top = depth-1;
+                if (pathNext[top].hasNext()) {
+                    ParseTree t = pathNext[top].next();
+                    int tx = pathTx[top];
+                    pathTx[top] = tx + t.width()*HSEP;
+                    pathArity[top]++;
+                    if (t instanceof NonTerminalTree) {
+                        NonTerminalTree nt = (NonTerminalTree)t;
+                        pathTree[depth] = nt;
+                        pathNext[depth] = nt.children.iterator();
+                        pathX[depth] = pathTx[depth] = tx;
+                        pathY[depth] = pathY[top] + VSEP;
+                        pathStart[depth] = count;
+                        pathArity[depth] = 0;
+                        depth++;
+                    } else
+                        add(t, tx, pathY[top] + VSEP, h - depth, 0);
+                } else {
+                    int i = add(pathTree[top], pathX[top], pathY[top],
+                        h - top, pathArity[top]);
+                    size[i] = i - pathStart[top] + 1;
+                    int k = pathArity[top];
+                    if (k > 0) {
+                        // rx is median of subtree root x-coordinates
+                        int lo = 0;
+                        int hi = 0;
+                        int c = i-1;
+                        for (int j = k-1; j >= 0; j--) {
+                            if (j == (k-1)/2)
+                                lo = rootX[c];
+                            if (j == k/2)
+                                hi = rootX[c];
+                            c = c - size[c];
+                        }
+                        rootX[i] = (lo + hi)/2;
+                    }
+                    pathNext[top] = null;
+                    depth--;
+                }
+            }
+        }
+
+        private int add(ParseTree t, int x, int ny, int nlevels, int k) {
+            int i = count++;
+            node[i] = t;
+            rootX[i] = x;
+            y[i] = ny;
+            levels[i] = nlevels;
+            size[i] = 1;
+            arity[i] = k;
+            return i;
+        }
+
+        void draw(SVG out) {
+            int[] childX = new int[16];
+            for (int i = 0; i < count; i++)
+                if (node[i] instanceof NonTerminalTree) {
+                    int k = arity[i];
+                    if (k > childX.length)
+                        childX = new int[Math.max(k, 2*childX.length)];
+                    int c = i-1;
+                    for (int j = k-1; j >= 0; j--) {
+                        childX[j] = rootX[c];
+                        c = c - size[c];
+                    }
+                    ((NonTerminalTree)node[i]).drawNode(out, rootX[i], y[i], childX, k);
+                } else
+                    ((TerminalTree)node[i]).draw(out, rootX[i], y[i], levels[i]);
+        }
+    }
+
+    public static class Ascending implements Comparator<NonTerminalTree> {
+        /** Trees are ordered first by length, then by generated sentence. */
+        public final int compare(NonTerminalTree a, NonTerminalTree b) {
+            if (a.len != b.len)
+                return a.len - b.len;
+            if (a != b) {
+                int c = a.sentence().compareTo(b.sentence());
+                if (c != 0)
+                    return c;
+            }
+            return a.height() - b.height();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/** Bounded cache of parse results, keyed on a grammar fingerprint and
+  the input symbols, shared by any number of parsers and threads.
+  Each entry is weighted by the total size of its trees, and the least
+  recently used entries are evicted when the total weight exceeds the
+  capacity.
+ */
+public class ParseCache {
+    private final long capacity;
+    private final LinkedHashMap<Key, Result> entries;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /** Cache holding trees of total size (height times width) at most
+      capacity. */
+    public ParseCache(long capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.weight = 0;
+    }
+
+    /** Stored trees for the input, with whether they were all the
+      derivations, or null if there are none. */
+    synchronized Result get(CompiledGrammar grammar, int[] syms, int n) {
+        Result r = entries.get(new Key(grammar.fingerprint(), syms, n));
+        if (r == null)
+            misses++;
+        else
+            hits++;
+        return r;
+    }
+
+    synchronized void put(CompiledGrammar grammar, int[] syms, int n,
+            ArrayList<NonTerminalTree> trees, boolean full) {
+        Result r = new Result(trees, full);
+        if (r.weight > capacity)
+            return;
+        Result old = entries.put(new Key(grammar.fingerprint(), syms, n), r);
+        if (old != null)
+            weight = weight - old.weight;
+        weight = weight + r.weight;
+        Iterator<Result> lru = entries.values().iterator();
+        while (weight > capacity) {
+            weight = weight - lru.next().weight;
+            lru.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /** Number of inputs whose results are held. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Total weight of the trees held. */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized String toString() {
+        return "hits " + hits + ", misses " + misses + ", evictions " +
+            evictions + ", entries " + entries.size() + ", weight " + weight;
+    }
+
+    /** The trees found for an input. */
+    static class Result {
+        final ArrayList<NonTerminalTree> trees;
+        final boolean full;
+        final long weight;
+
+        Result(ArrayList<NonTerminalTree> trees, boolean full) {
+            this.trees = new ArrayList<>(trees);
+            this.full = full;
+            long w = 1;
+            for (NonTerminalTree t : trees)
+                w = w + t.height()*t.width();
+            this.weight = w;
+        }
+    }
+
+    private static class Key {
+        private final long grammar;
+        private final int[] syms;
+        private final int hash;
+
+        Key(long grammar, int[] syms, int n) {
+            this.grammar = grammar;
+            this.syms = Arrays.copyOf(syms, n);
+            this.hash = 31*Long.hashCode(grammar) + Arrays.hashCode(this.syms);
+        }
+
+        public boolean equals(Object obj) {
+            Key o = (Key)obj;
+            return o != null && hash == o.hash && grammar == o.grammar &&
+                Arrays.equals(syms, o.syms);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
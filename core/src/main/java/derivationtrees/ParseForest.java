@@ -0,0 +1,408 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/** Shared packed parse forest built by an Earley parse.
+  Each nonterminal recognized over a span of the input is represented
+  once, however many ways it can be derived, and derivation trees are
+  only built when they are pulled from the iterator.
+  Equal subtrees are shared within each tree pulled from the iterator,
+  but not between trees, so that memory does not grow with the number
+  of trees pulled; trees from different calls of next() compare
+  structurally.
+ */
+public class ParseForest implements Iterable<NonTerminalTree> {
+    private final CompiledGrammar grammar;
+    private final SymbolNode root;
+    private final boolean mirrored;
+
+    public ParseForest(CompiledGrammar grammar, SymbolNode root) {
+        this(grammar, root, false);
+    }
+
+    /** If mirrored, the forest was built with the reversed grammar, and the
+      children of each tree are reversed as it is built. */
+    public ParseForest(CompiledGrammar grammar, SymbolNode root, boolean mirrored) {
+        this.grammar = grammar;
+        this.root = root;
+        this.mirrored = mirrored;
+    }
+
+    /** The input has no derivations. */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /** Some nonterminal derives itself over the same span, so the
+      input has infinitely many derivations.  Only derivations in which
+      this does not happen are produced by the iterator.
+     */
+    public boolean isCyclic() {
+        return root != null &&
+            root.findCycle(new HashSet<SymbolNode>(), new HashSet<SymbolNode>());
+    }
+
+    /** Derivation trees of the input, built lazily. */
+    public Iterator<NonTerminalTree> iterator() {
+        if (root == null)
+            return Collections.<NonTerminalTree>emptyIterator();
+        final Builder builder = new Builder(grammar, mirrored);
+        final Iterator<NonTerminalTree> trees = root.trees(builder, null);
+        return new Iterator<NonTerminalTree>() {
+            public boolean hasNext() {
+                return trees.hasNext();
+            }
+
+            public NonTerminalTree next() {
+                NonTerminalTree t = trees.next();
+                // forget the trees interned for this one
+                builder.reset();
+                return t;
+            }
+        };
+    }
+
+    /** Two different derivation trees of the input, or null if there is
+      at most one.  Instead of enumerating trees, this follows the first
+      derivation of each node and item from the root, stopping at the
+      first with another derivation; the witnesses are the trees that
+      differ only there.
+     */
+    public NonTerminalTree[] ambiguity() {
+        if (root == null)
+            return null;
+        // Each node and item was recorded after the parts of its first
+        // derivation, so following first derivations never loops.
+        Set<SymbolNode> seen = new HashSet<>();
+        ArrayList<SymbolNode> stack = new ArrayList<>();
+        seen.add(root);
+        stack.add(root);
+        Object target = null;
+        while (target == null && ! stack.isEmpty()) {
+            SymbolNode n = stack.remove(stack.size() - 1);
+            if (n.alternatives.size() > 1) {
+                target = n;
+                break;
+            }
+            for (EarleyItem x = n.alternatives.get(0); x.derivations() != null;
+                    x = x.derivations().prev) {
+                EarleyItem.Derivation d = x.derivations();
+                if (d.next() != null) {
+                    target = x;
+                    break;
+                }
+                if (d.child instanceof SymbolNode && seen.add((SymbolNode)d.child))
+                    stack.add((SymbolNode)d.child);
+            }
+        }
+        if (target == null)
+            return null;
+        Witness witness = new Witness(new Builder(grammar, mirrored));
+        NonTerminalTree first = witness.tree(root);
+        witness.target = target;
+        NonTerminalTree second = witness.tree(root);
+        return new NonTerminalTree[] { first, second };
+    }
+
+    // Trees following the first derivation of each node and item, except
+    // for the first occurrence of the target, where the second is taken.
+    private static class Witness {
+        private final Builder builder;
+        // trees built without the target, shared by both witnesses
+        private final Map<SymbolNode, NonTerminalTree> done = new HashMap<>();
+        Object target = null;
+
+        public Witness(Builder builder) {
+            this.builder = builder;
+        }
+
+        /** The tree for n, built with an explicit stack of the nodes
+          on the path from n, so deep trees do not overflow the stack. */
+        public NonTerminalTree tree(SymbolNode n) {
+            if (target == null && done.containsKey(n))
+                return done.get(n);
+            ArrayList<Frame> stack = new ArrayList<>();
+            stack.add(frame(n));
+            for (;;) {
+                Frame f = stack.get(stack.size() - 1);
+                if (f.item.derivations() == null) {
+                    // all the children of f.node are built
+                    Cons<ParseTree> list = null;
+                    for (int i = f.children.size() - 1; i >= 0; i--)
+                        list = new Cons<ParseTree>(f.children.get(i), list);
+                    NonTerminalTree t = builder.tree(f.node.nt, list);
+                    if (f.canonical)
+                        done.put(f.node, t);
+                    stack.remove(stack.size() - 1);
+                    if (stack.isEmpty())
+                        return t;
+                    stack.get(stack.size() - 1).children.add(t);
+                    continue;
+                }
+                EarleyItem.Derivation d = f.item.derivations();
+                if (f.item == target) {
+                    d = d.next();
+                    target = null;
+                }
+                f.item = d.prev;
+                if (d.child instanceof TerminalNode)
+                    f.children.add(((TerminalNode)d.child).tree);
+                else {
+                    SymbolNode c = (SymbolNode)d.child;
+                    if (target == null && done.containsKey(c))
+                        f.children.add(done.get(c));
+                    else
+                        stack.add(frame(c));
+                }
+            }
+        }
+
+        // start building the tree for n, using its second alternative if
+        // it is the target
+        private Frame frame(SymbolNode n) {
+            Frame f = new Frame(n, target == null);
+            f.item = n.alternatives.get(0);
+            if (n == target) {
+                f.item = n.alternatives.get(1);
+                target = null;
+            }
+            return f;
+        }
+    }
+
+    // a node whose tree is being built, with the item whose derivation
+    // gives the next child, and the children built so far
+    private static class Frame {
+        final SymbolNode node;
+        final boolean canonical;
+        final ArrayList<ParseTree> children = new ArrayList<>();
+        EarleyItem item;
+
+        Frame(SymbolNode node, boolean canonical) {
+            this.node = node;
+            this.canonical = canonical;
+        }
+    }
+
+    /** A node of the forest. */
+    static abstract class Node {
+        /** Trees for this node, excluding those in which a node on the
+          path derives itself. */
+        abstract Iterator<? extends ParseTree> trees(Builder builder,
+            Cons<SymbolNode> path);
+    }
+
+    /** A terminal symbol of the input. */
+    static class TerminalNode extends Node {
+        private final TerminalTree tree;
+
+        public TerminalNode(String sym) {
+            this.tree = new TerminalTree(sym);
+        }
+
+        Iterator<TerminalTree> trees(Builder builder,
+                Cons<SymbolNode> path) {
+            return Collections.singleton(tree).iterator();
+        }
+    }
+
+    /** A nonterminal recognized over a span of the input. */
+    static class SymbolNode extends Node {
+        private final int nt;
+        private final int start;
+        private final int finish;
+        // completed items for nt over this span
+        private final ArrayList<EarleyItem> alternatives;
+
+        public SymbolNode(int nt, int start, int finish) {
+            this.nt = nt;
+            this.start = start;
+            this.finish = finish;
+            this.alternatives = new ArrayList<>();
+        }
+
+        public int nonTerminal() {
+            return nt;
+        }
+
+        public int finish() {
+            return finish;
+        }
+
+        public void addAlternative(EarleyItem item) {
+            alternatives.add(item);
+        }
+
+        public boolean equals(Object obj) {
+            SymbolNode o = (SymbolNode)obj;
+            return o != null &&
+                start == o.start && finish == o.finish && nt == o.nt;
+        }
+
+        public int hashCode() {
+            return 13*start + 19*finish + 23*nt;
+        }
+
+        Iterator<NonTerminalTree> trees(Builder builder,
+                Cons<SymbolNode> path) {
+            for (SymbolNode n : Cons.iterable(path))
+                if (n == this)
+                    return Collections.<NonTerminalTree>emptyIterator();
+            return new TreeIterator(builder, this,
+                new Cons<SymbolNode>(this, path));
+        }
+
+        // depth-first search for a node that can reach itself
+        boolean findCycle(Set<SymbolNode> active, Set<SymbolNode> done) {
+            if (done.contains(this))
+                return false;
+            if (active.contains(this))
+                return true;
+            active.add(this);
+            for (EarleyItem item : alternatives)
+                for (EarleyItem link : chain(item))
+                    for (EarleyItem.Derivation d = link.derivations(); d != null;
+                            d = d.next())
+                        if (d.child instanceof SymbolNode &&
+                            ((SymbolNode)d.child).findCycle(active, done))
+                            return true;
+            active.remove(this);
+            done.add(this);
+            return false;
+        }
+    }
+
+    // all items that may occur in derivations of a completed item
+    private static Set<EarleyItem> chain(EarleyItem item) {
+        Set<EarleyItem> items = new HashSet<>();
+        ArrayList<EarleyItem> stack = new ArrayList<>();
+        stack.add(item);
+        while (! stack.isEmpty()) {
+            EarleyItem x = stack.remove(stack.size() - 1);
+            if (items.add(x))
+                for (EarleyItem.Derivation d = x.derivations(); d != null;
+                        d = d.next())
+                    stack.add(d.prev);
+        }
+        return items;
+    }
+
+    // construction of trees from the subtrees found for an item
+    private static class Builder {
+        private final CompiledGrammar grammar;
+        private final boolean mirrored;
+        private TreeFactory factory = new TreeFactory();
+
+        public Builder(CompiledGrammar grammar, boolean mirrored) {
+            this.grammar = grammar;
+            this.mirrored = mirrored;
+        }
+
+        /** Start interning afresh. */
+        public void reset() {
+            factory = new TreeFactory();
+        }
+
+        public NonTerminalTree tree(int nt, Cons<ParseTree> children) {
+            if (mirrored) {
+                Cons<ParseTree> rev = null;
+                for (ParseTree t : Cons.iterable(children))
+                    rev = new Cons<ParseTree>(t, rev);
+                children = rev;
+            }
+            return factory.nonTerminal(grammar.name(nt), Cons.iterable(children));
+        }
+    }
+
+    // trees of a nonterminal node, one alternative at a time
+    private static class TreeIterator implements Iterator<NonTerminalTree> {
+        private final Builder builder;
+        private final SymbolNode node;
+        private final Cons<SymbolNode> path;
+        private int alt;
+        private Iterator<Cons<ParseTree>> children;
+
+        public TreeIterator(Builder builder, SymbolNode node,
+                Cons<SymbolNode> path) {
+            this.builder = builder;
+            this.node = node;
+            this.path = path;
+            this.alt = 0;
+            this.children = null;
+        }
+
+        public boolean hasNext() {
+            while (children == null || ! children.hasNext()) {
+                if (alt >= node.alternatives.size())
+                    return false;
+                children = new SequenceIterator(builder,
+                    node.alternatives.get(alt), path);
+                alt++;
+            }
+            return true;
+        }
+
+        public NonTerminalTree next() {
+            if (! hasNext())
+                throw new NoSuchElementException();
+            return builder.tree(node.nt, children.next());
+        }
+    }
+
+    // subtrees for the parsed part of the rhs of an item
+    private static class SequenceIterator implements Iterator<Cons<ParseTree>> {
+        private final Builder builder;
+        private final EarleyItem item;
+        private final Cons<SymbolNode> path;
+        private boolean predicted; // null sequence not yet returned
+        private EarleyItem.Derivation link; // next derivation to expand
+        private EarleyItem prev;
+        private Iterator<? extends ParseTree> heads;
+        private ParseTree head;
+        private Iterator<Cons<ParseTree>> tails;
+
+        public SequenceIterator(Builder builder, EarleyItem item,
+                Cons<SymbolNode> path) {
+            this.builder = builder;
+            this.item = item;
+            this.path = path;
+            this.link = item.derivations();
+            this.predicted = link == null;
+        }
+
+        public boolean hasNext() {
+            if (item.derivations() == null)
+                return predicted;
+            while (tails == null || ! tails.hasNext()) {
+                if (heads != null && heads.hasNext()) {
+                    head = heads.next();
+                    tails = new SequenceIterator(builder, prev, path);
+                } else if (link != null) {
+                    prev = link.prev;
+                    heads = link.child.trees(builder, path);
+                    tails = null;
+                    link = link.next();
+                } else
+                    return false;
+            }
+            return true;
+        }
+
+        public Cons<ParseTree> next() {
+            if (! hasNext())
+                throw new NoSuchElementException();
+            if (item.derivations() == null) {
+                predicted = false;
+                return null;
+            }
+            return new Cons<ParseTree>(head, tails.next());
+        }
+    }
+}
@@ -1,3 +1,5 @@
+package derivationtrees;
+
 import java.io.PrintWriter;
 import java.util.ArrayList;
 
@@ -12,7 +14,11 @@ public abstract class ParseTree {
     public abstract int width();
     public abstract String shortName();
 
-    protected abstract void addSentence(StringBuffer s);
+    // number of nodes in the tree
+    protected abstract int nodeCount();
 
-    protected abstract int draw(SVG out, int x, int y, int levels);
+    // length of the sentence built by addSentence
+    protected abstract int sentenceLength();
+
+    protected abstract void addSentence(StringBuffer s);
 }
@@ -0,0 +1,127 @@
+package derivationtrees;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/** The nonterminals whose productions an Earley parser predicts
+  together, computed once for a grammar.
+  As items match right hand sides from right to left, predicting a
+  nonterminal predicts the last symbol of each of its productions, and
+  the symbol before any nullable suffix; the closure of this relation
+  is recorded for each nonterminal, so that a state predicts all of it
+  at once instead of one item at a time.
+  A production is only predicted if it can generate the null string or
+  end with the next symbol to be scanned (the one to the left), if that
+  is known.
+ */
+class PredictionTable {
+    private final CompiledGrammar grammar;
+    private final GrammarProperties properties;
+    // closure of nt: closure[closureStart[nt]] ... closure[closureStart[nt+1]-1]
+    private final int[] closureStart;
+    private final int[] closure;
+    // terminals that can end the strings of each production (null if
+    // the production can generate the null string)
+    private final BitSet[] last;
+
+    public PredictionTable(CompiledGrammar grammar) {
+        this(grammar, new GrammarProperties(grammar));
+    }
+
+    public PredictionTable(CompiledGrammar grammar, GrammarProperties properties) {
+        this.grammar = grammar;
+        this.properties = properties;
+        final int n = grammar.nonTerminalCount();
+
+        // nonterminals predicted directly by each nonterminal
+        int[] edgeStart = new int[n+1];
+        int[] edges = new int[grammar.rhsEnd(grammar.productionCount() - 1)];
+        int e = 0;
+        for (int nt = 0; nt < n; nt++) {
+            edgeStart[nt] = e;
+            for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++)
+                for (int i = grammar.rhsEnd(p) - 1; i >= grammar.rhsStart(p); i--) {
+                    final int sym = grammar.rhsSymbol(i);
+                    if (grammar.isTerminal(sym))
+                        break;
+                    edges[e++] = sym;
+                    if (! properties.isNullable(sym))
+                        break;
+                }
+        }
+        edgeStart[n] = e;
+
+        // closures, by a search from each nonterminal
+        closureStart = new int[n+1];
+        int[] result = new int[n];
+        int size = 0;
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        int[] stack = new int[n];
+        for (int nt = 0; nt < n; nt++) {
+            closureStart[nt] = size;
+            int top = 0;
+            stack[top++] = nt;
+            mark[nt] = nt;
+            while (top > 0) {
+                final int x = stack[--top];
+                if (size == result.length)
+                    result = Arrays.copyOf(result, 2*size);
+                result[size++] = x;
+                for (int j = edgeStart[x]; j < edgeStart[x+1]; j++)
+                    if (mark[edges[j]] != nt) {
+                        mark[edges[j]] = nt;
+                        stack[top++] = edges[j];
+                    }
+            }
+        }
+        closureStart[n] = size;
+        closure = Arrays.copyOf(result, size);
+
+        last = new BitSet[grammar.productionCount()];
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            BitSet s = new BitSet();
+            boolean nullable = true;
+            for (int i = grammar.rhsEnd(p) - 1; nullable && i >= grammar.rhsStart(p); i--) {
+                final int sym = grammar.rhsSymbol(i);
+                if (grammar.isTerminal(sym))
+                    s.set(sym);
+                else
+                    s.or(properties.last(sym));
+                nullable = properties.isNullable(sym);
+            }
+            last[p] = nullable ? null : s;
+        }
+    }
+
+    public CompiledGrammar grammar() {
+        return grammar;
+    }
+
+    /** Whether a symbol can generate the null string. */
+    public boolean isNullable(int sym) {
+        return properties.isNullable(sym);
+    }
+
+    /** Start of the closure of nt, which begins with nt itself. */
+    public int closureStart(int nt) {
+        return closureStart[nt];
+    }
+
+    public int closureEnd(int nt) {
+        return closureStart[nt+1];
+    }
+
+    /** A nonterminal in a closure. */
+    public int closureMember(int i) {
+        return closure[i];
+    }
+
+    /** Whether production p can be predicted when the next symbol to be
+      scanned is next: a symbol number, -1 for a token that is not a
+      symbol, Tokenizer.END for none, or EarleyChart.ANY if unknown. */
+    public boolean mayPredict(int p, int next) {
+        return next == EarleyChart.ANY || last[p] == null ||
+            next >= 0 && last[p].get(next);
+    }
+}
@@ -0,0 +1,69 @@
+package derivationtrees;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/** Tokenizer reading characters from a Reader into a buffer that holds
+  at least the current token.
+ */
+abstract class ReaderTokenizer implements Tokenizer {
+    private final Reader in;
+    private boolean eof;
+
+    char[] buf;
+    int mark; // start of the characters to be kept by fill
+    int pos;  // next character to examine
+    int len;  // end of the characters read
+
+    ReaderTokenizer(Reader in) {
+        this.in = in;
+        this.eof = false;
+        this.buf = new char[8192];
+        this.mark = 0;
+        this.pos = 0;
+        this.len = 0;
+    }
+
+    /** Read more characters, moving those from mark on to the start of
+      the buffer.  Returns false at the end of the input.
+     */
+    final boolean fill() throws IOException {
+        if (eof)
+            return false;
+        if (mark > 0) {
+            System.arraycopy(buf, mark, buf, 0, len - mark);
+            pos = pos - mark;
+            len = len - mark;
+            mark = 0;
+        }
+        if (len == buf.length)
+            buf = Arrays.copyOf(buf, 2*buf.length);
+        int n = in.read(buf, len, buf.length - len);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        len = len + n;
+        return true;
+    }
+
+    /** The end of the input has been read. */
+    final boolean exhausted() {
+        return eof;
+    }
+
+    /** Skip whitespace, setting mark to the next character.
+      Returns false at the end of the input.
+     */
+    final boolean skipSpace() throws IOException {
+        for (;;) {
+            mark = pos;
+            if (pos == len && ! fill())
+                return false;
+            if (! Character.isWhitespace(buf[pos]))
+                return true;
+            pos++;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package derivationtrees;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Tokens are the longest match of either a terminal of the grammar
+  written literally or a token class, given by a regular expression
+  and named by a terminal (e.g. num for [0-9]+).  Literal terminals
+  win ties, so keywords are not taken as identifiers, and then classes
+  in the order given.  Whitespace between tokens is skipped, and a
+  character that starts no token is returned as an unknown symbol.
+ */
+public class RegexTokenizer extends ReaderTokenizer {
+    private final Patterns patterns;
+    private final Matcher[] matchers;
+    private CharBuffer text; // buf as seen by the matchers
+
+    /** Tokenizer with classes mapping terminal names to regular
+      expressions, tried in iteration order.
+     */
+    public RegexTokenizer(CompiledGrammar grammar, Map<String, String> classes,
+            Reader in) {
+        this(new Patterns(grammar, classes), in);
+    }
+
+    private RegexTokenizer(Patterns patterns, Reader in) {
+        super(in);
+        this.patterns = patterns;
+        this.matchers = new Matcher[patterns.patterns.length];
+        for (int k = 0; k < matchers.length; k++)
+            matchers[k] = patterns.patterns[k].matcher("");
+        text = null;
+    }
+
+    /** Tokenizers for the grammar and classes, sharing the compiled
+      patterns and the table of terminals. */
+    public static Tokenizer.Factory factory(CompiledGrammar grammar,
+            Map<String, String> classes) {
+        final Patterns patterns = new Patterns(grammar, classes);
+        return new Tokenizer.Factory() {
+            public Tokenizer tokenizer(Reader in) {
+                return new RegexTokenizer(patterns, in);
+            }
+        };
+    }
+
+    // what tokenizers for the same grammar and classes have in common
+    private static class Patterns {
+        final TerminalTable terminals;
+        // the first pattern (if literal) matches the literal terminals
+        final Pattern[] patterns;
+        final int[] symbols;
+        final boolean literal;
+
+        Patterns(CompiledGrammar grammar, Map<String, String> classes) {
+            terminals = new TerminalTable(grammar);
+            ArrayList<String> literals = new ArrayList<>();
+            for (int sym = grammar.nonTerminalCount(); sym < grammar.symbolCount(); sym++)
+                if (! classes.containsKey(grammar.name(sym)))
+                    literals.add(grammar.name(sym));
+            // longest first, as alternation takes the first match
+            Collections.sort(literals, new Comparator<String>() {
+                public int compare(String a, String b) {
+                    return b.length() - a.length();
+                }
+            });
+            literal = ! literals.isEmpty();
+            int n = classes.size() + (literal ? 1 : 0);
+            patterns = new Pattern[n];
+            symbols = new int[n];
+            int k = 0;
+            if (literal) {
+                StringBuffer re = new StringBuffer();
+                for (String s : literals) {
+                    if (re.length() > 0)
+                        re.append('|');
+                    re.append(Pattern.quote(s));
+                }
+                patterns[k] = Pattern.compile(re.toString());
+                symbols[k] = -1;
+                k++;
+            }
+            for (Map.Entry<String, String> c : classes.entrySet()) {
+                patterns[k] = Pattern.compile(c.getValue());
+                symbols[k] = grammar.symbol(c.getKey());
+                k++;
+            }
+        }
+    }
+
+    public int next() throws IOException {
+        if (! skipSpace())
+            return END;
+        for (;;) {
+            if (text == null || text.array() != buf || text.limit() != len) {
+                text = CharBuffer.wrap(buf, 0, len);
+                for (Matcher m : matchers)
+                    m.reset(text);
+            }
+            int best = -1;
+            int bestEnd = pos;
+            boolean more = false;
+            for (int k = 0; k < matchers.length; k++) {
+                Matcher m = matchers[k];
+                m.region(pos, len);
+                if (m.lookingAt() && m.end() > bestEnd) {
+                    best = k;
+                    bestEnd = m.end();
+                }
+                more = more || m.hitEnd();
+            }
+            if (more && ! exhausted()) {
+                // a longer match may need more input
+                fill();
+                continue;
+            }
+            if (best < 0) {
+                pos++;
+                return -1;
+            }
+            pos = bestEnd;
+            return patterns.literal && best == 0 ?
+                patterns.terminals.lookup(buf, mark, pos) : patterns.symbols[best];
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package derivationtrees;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/** Writer of SVG elements, formatting text and numbers directly into a
+  buffer that is passed on to the output when full or flushed, so
+  drawing allocates nothing per element.  An SVG may be reused for any
+  number of trees; errors from the output are rethrown unchecked.
+ */
+public class SVG {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final Appendable out;
+    private final char[] buf;
+    private int len;
+
+    public SVG(Appendable out) {
+        this.out = out;
+        this.buf = new char[8192];
+        this.len = 0;
+    }
+
+    public void startTag(String tag) {
+        put('<');
+        put(tag);
+    }
+
+    public void attribute(String name, int value) {
+        put(' ');
+        put(name);
+        put('=');
+        put('"');
+        put(value);
+        put('"');
+    }
+
+    public void attribute(String name, String value) {
+        put(' ');
+        put(name);
+        put('=');
+        put('"');
+        put(value);
+        put('"');
+    }
+
+    public void closeBracket() {
+        put('>');
+    }
+
+    public void closeEmpty() {
+        put('/');
+        put('>');
+    }
+
+    public void endTag(String tag) {
+        put('<');
+        put('/');
+        put(tag);
+        put('>');
+    }
+
+    public void startLines(String colour) {
+        startTag("g");
+        attribute("stroke", colour);
+        attribute("stroke-width", 1);
+        attribute("stroke-linecap", "round");
+        closeBracket();
+    }
+
+    public void endLines() {
+        endTag("g");
+    }
+
+    public void line(int x1, int y1, int x2, int y2) {
+        startTag("line");
+        attribute("x1", x1);
+        attribute("y1", y1);
+        attribute("x2", x2);
+        attribute("y2", y2);
+        closeEmpty();
+    }
+
+    public void text(int x, int y, String colour, String s) {
+        startTag("text");
+        attribute("x", x);
+        attribute("y", y);
+        attribute("text-anchor", "middle");
+        attribute("fill", colour);
+        closeBracket();
+        put(s);
+        endTag("text");
+    }
+
+    /** Start the definition of symbol prefix<id>, drawn without clipping. */
+    public void startSymbol(String prefix, int id) {
+        startTag("symbol");
+        put(" id=\"");
+        put(prefix);
+        put(id);
+        put('"');
+        attribute("overflow", "visible");
+        closeBracket();
+    }
+
+    public void endSymbol() {
+        endTag("symbol");
+    }
+
+    /** A copy of symbol prefix<id> moved by (x, y). */
+    public void use(String prefix, int id, int x, int y) {
+        startTag("use");
+        put(" href=\"#");
+        put(prefix);
+        put(id);
+        put('"');
+        attribute("x", x);
+        attribute("y", y);
+        closeEmpty();
+    }
+
+    /** Text already in SVG form. */
+    public void append(CharSequence s) {
+        flush();
+        try {
+            out.append(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void newline() {
+        put(NEWLINE);
+    }
+
+    /** Pass the buffered text on to the output (without flushing it). */
+    public void flush() {
+        try {
+            if (out instanceof Writer)
+                ((Writer)out).write(buf, 0, len);
+            else
+                for (int i = 0; i < len; i++)
+                    out.append(buf[i]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        len = 0;
+    }
+
+    private void put(char c) {
+        if (len == buf.length)
+            flush();
+        buf[len++] = c;
+    }
+
+    private void put(String s) {
+        int n = s.length();
+        if (len + n > buf.length) {
+            flush();
+            if (n > buf.length) {
+                try {
+                    out.append(s);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+        }
+        s.getChars(0, n, buf, len);
+        len = len + n;
+    }
+
+    // decimal digits, without going through a String
+    private void put(int n) {
+        if (len + 11 > buf.length)
+            flush();
+        long v = n;
+        if (v < 0) {
+            buf[len++] = '-';
+            v = -v;
+        }
+        int start = len;
+        do {
+            buf[len++] = (char)('0' + v%10);
+            v = v/10;
+        } while (v > 0);
+        for (int i = start, j = len - 1; i < j; i++, j--) {
+            char c = buf[i];
+            buf[i] = buf[j];
+            buf[j] = c;
+        }
+    }
+}
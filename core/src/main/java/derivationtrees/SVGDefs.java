@@ -0,0 +1,102 @@
+package derivationtrees;
+
+import java.util.HashMap;
+
+/** Subtrees shared between the trees of a page, each drawn once as an
+  SVG symbol and referenced with use elements wherever it occurs.
+  A subtree is drawn differently at different heights above the bottom
+  of its tree (its leaves are repeated there), so definitions are keyed
+  on the subtree together with that height.  References may precede
+  definitions, so the definitions are written after the trees.
+ */
+public class SVGDefs {
+    private final String prefix;
+    private final HashMap<Key, Entry> entries = new HashMap<>();
+    private final StringBuilder text = new StringBuilder();
+    final SVG svg = new SVG(text);
+    // x-coordinates of the children of the node being drawn
+    int[] childX = new int[16];
+
+    public SVGDefs() {
+        this("t");
+    }
+
+    /** Definitions whose ids start with prefix, to keep them distinct
+      from other definitions in the same document. */
+    public SVGDefs(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /** Id prefix of the definitions. */
+    String prefix() {
+        return prefix;
+    }
+
+    /** Number of subtrees defined. */
+    public int size() {
+        return entries.size();
+    }
+
+    /** Write the definitions, as an invisible SVG element. */
+    public void write(SVG out) {
+        svg.flush();
+        out.startTag("svg");
+        out.attribute("width", 0);
+        out.attribute("height", 0);
+        out.attribute("style", "position:absolute");
+        out.attribute("xmlns", "http://www.w3.org/2000/svg");
+        out.closeBracket();
+        out.startTag("defs");
+        out.closeBracket();
+        out.append(text);
+        out.endTag("defs");
+        out.endTag("svg");
+        out.newline();
+    }
+
+    Entry get(NonTerminalTree t, int levels) {
+        return entries.get(new Key(t, levels));
+    }
+
+    Entry add(NonTerminalTree t, int levels, int rootX) {
+        Entry e = new Entry(entries.size(), rootX);
+        entries.put(new Key(t, levels), e);
+        return e;
+    }
+
+    /** Next id to be assigned by add. */
+    int nextId() {
+        return entries.size();
+    }
+
+    /** A defined subtree, drawn with its left edge at 0 and its root at
+      y = 0. */
+    static class Entry {
+        final int id;
+        final int rootX;
+
+        Entry(int id, int rootX) {
+            this.id = id;
+            this.rootX = rootX;
+        }
+    }
+
+    private static class Key {
+        private final NonTerminalTree tree;
+        private final int levels;
+
+        Key(NonTerminalTree tree, int levels) {
+            this.tree = tree;
+            this.levels = levels;
+        }
+
+        public boolean equals(Object obj) {
+            Key o = (Key)obj;
+            return o != null && levels == o.levels && tree.equals(o.tree);
+        }
+
+        public int hashCode() {
+            return 31*tree.hashCode() + levels;
+        }
+    }
+}
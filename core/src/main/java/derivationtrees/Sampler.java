@@ -0,0 +1,110 @@
+package derivationtrees;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/** Derivation trees of the start symbol with sentences of a given length
+  (in terminals), drawn uniformly at random.
+  Each choice of production and of the lengths of the parts of its rhs
+  is weighted by the number of trees it leads to, as given by Counting,
+  so memory depends on the length of the sentences and the size of the
+  grammar, not on the number of trees.
+ */
+public class Sampler {
+    private final CompiledGrammar grammar;
+    private final Counting counts;
+    private final Random random;
+    private final TerminalTree[] leaves;
+
+    public Sampler(CompiledGrammar grammar, Random random) {
+        this(grammar, new Counting(grammar), random);
+    }
+
+    public Sampler(CompiledGrammar grammar, Counting counts, Random random) {
+        this.grammar = grammar;
+        this.counts = counts;
+        this.random = random;
+        leaves = new TerminalTree[grammar.symbolCount()];
+        for (int sym = grammar.nonTerminalCount(); sym < grammar.symbolCount(); sym++)
+            leaves[sym] = new TerminalTree(grammar.name(sym));
+    }
+
+    /** A tree of a sentence of n terminals, each equally likely. */
+    public NonTerminalTree sample(int n) {
+        BigInteger total = counts.count(grammar.start(), n);
+        if (total == null)
+            throw new IllegalArgumentException("infinitely many derivations of length " + n);
+        if (total.signum() == 0)
+            throw new IllegalArgumentException("no derivations of length " + n);
+        return sample(grammar.start(), n);
+    }
+
+    /** A stream of k samples of length n. */
+    public Iterator<NonTerminalTree> samples(final int n, final long k) {
+        return new Iterator<NonTerminalTree>() {
+            private long remaining = k;
+
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            public NonTerminalTree next() {
+                if (remaining <= 0)
+                    throw new NoSuchElementException();
+                remaining--;
+                return sample(n);
+            }
+        };
+    }
+
+    // a tree of nt with n terminals, of which there are some
+    private NonTerminalTree sample(int nt, int n) {
+        BigInteger r = below(counts.count(nt, n));
+        for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++) {
+            BigInteger c = counts.suffixCount(p, grammar.rhsStart(p), n);
+            if (r.compareTo(c) < 0)
+                return new NonTerminalTree(grammar.name(nt),
+                    Cons.iterable(sample(p, grammar.rhsStart(p), n)));
+            r = r.subtract(c);
+        }
+        throw new IllegalStateException("counts inconsistent");
+    }
+
+    // subtrees for the rhs of p from index i with n terminals
+    private Cons<ParseTree> sample(int p, int i, int n) {
+        if (i == grammar.rhsEnd(p))
+            return null;
+        final int sym = grammar.rhsSymbol(i);
+        if (grammar.isTerminal(sym))
+            return new Cons<ParseTree>(leaves[sym], sample(p, i+1, n-1));
+        // choose the length of the subtree for sym
+        BigInteger r = below(counts.suffixCount(p, i, n));
+        for (int j = 0; j <= n; j++) {
+            BigInteger c = times(counts.count(sym, j), counts.suffixCount(p, i+1, n-j));
+            if (r.compareTo(c) < 0) {
+                ParseTree t = sample(sym, j);
+                return new Cons<ParseTree>(t, sample(p, i+1, n-j));
+            }
+            r = r.subtract(c);
+        }
+        throw new IllegalStateException("counts inconsistent");
+    }
+
+    // product of counts, which are finite unless the other is zero
+    private static BigInteger times(BigInteger a, BigInteger b) {
+        if (a != null && a.signum() == 0 || b != null && b.signum() == 0)
+            return BigInteger.ZERO;
+        return a.multiply(b);
+    }
+
+    // a uniformly chosen number from 0 to n-1
+    private BigInteger below(BigInteger n) {
+        BigInteger r;
+        do
+            r = new BigInteger(n.bitLength(), random);
+        while (r.compareTo(n) >= 0);
+        return r;
+    }
+}
@@ -0,0 +1,351 @@
+package derivationtrees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/** Derivation trees of the start symbol up to a given depth, generated
+  one at a time in NonTerminalTree.Ascending order.
+  The trees are those that Expansion would hold after depth calls of
+  expand(), but instead of whole languages only the trees being combined
+  are held, together with tables of the possible lengths of sentences.
+
+  Lengths are measured as in NonTerminalTree.Ascending, by the number of
+  characters of the sentence, with a terminal counting as its length
+  plus one for the separating space.  Two sentences of equal length
+  split into parts of equal lengths compare as their first differing
+  part, so sorted streams of parts can be combined into sorted streams
+  of sentences without buffering.
+ */
+class StreamingExpansion implements Iterable<NonTerminalTree> {
+    private static final int INITIAL_CAP = 64;
+
+    private final CompiledGrammar grammar;
+    private final int depth;
+    private final TerminalTree[] leaves;
+    // longest sentence of each nonterminal within depth expansions
+    private final long[] maxLength;
+
+    // Lengths less than cap of sentences of each symbol after d expansions,
+    // and of the suffix of a rhs starting at each index.
+    private int cap;
+    private BitSet[][] symLengths;
+    private BitSet[][] suffixLengths;
+
+    public StreamingExpansion(Grammar grammar, int depth) {
+        this(new CompiledGrammar(grammar), depth);
+    }
+
+    public StreamingExpansion(CompiledGrammar grammar, int depth) {
+        this.grammar = grammar;
+        this.depth = depth;
+        leaves = new TerminalTree[grammar.symbolCount()];
+        for (int sym = grammar.nonTerminalCount(); sym < grammar.symbolCount(); sym++)
+            leaves[sym] = new TerminalTree(grammar.name(sym));
+        maxLength = computeMaxLength();
+        computeLengths(INITIAL_CAP);
+    }
+
+    /** Trees in ascending order, built as they are requested. */
+    public Iterator<NonTerminalTree> iterator() {
+        return new AscendingIterator();
+    }
+
+    private static int weight(String terminal) {
+        return terminal.length() + 1;
+    }
+
+    private long[] computeMaxLength() {
+        long[] max = new long[grammar.nonTerminalCount()];
+        for (int nt = 0; nt < max.length; nt++)
+            max[nt] = -1;
+        for (int d = 1; d <= depth; d++) {
+            long[] next = new long[max.length];
+            for (int nt = 0; nt < max.length; nt++) {
+                next[nt] = -1;
+                for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++) {
+                    long sum = 0;
+                    for (int i = grammar.rhsStart(p); i < grammar.rhsEnd(p) && sum >= 0; i++) {
+                        int sym = grammar.rhsSymbol(i);
+                        long n = grammar.isTerminal(sym) ?
+                            weight(grammar.name(sym)) : max[sym];
+                        // saturate rather than overflow
+                        sum = n < 0 ? -1 : Math.min(Long.MAX_VALUE/2, sum + n);
+                    }
+                    next[nt] = Math.max(next[nt], sum);
+                }
+            }
+            max = next;
+        }
+        return max;
+    }
+
+    private void computeLengths(int cap) {
+        this.cap = cap;
+        final int numSyms = grammar.symbolCount();
+        final int numNTs = grammar.nonTerminalCount();
+        final int size = grammar.rhsEnd(grammar.productionCount() - 1);
+        symLengths = new BitSet[depth+1][numSyms];
+        suffixLengths = new BitSet[depth+1][size];
+        for (int d = 0; d <= depth; d++) {
+            for (int sym = numNTs; sym < numSyms; sym++) {
+                symLengths[d][sym] = new BitSet();
+                int w = weight(grammar.name(sym));
+                if (w < cap)
+                    symLengths[d][sym].set(w);
+            }
+            for (int nt = 0; nt < numNTs; nt++) {
+                BitSet s = new BitSet();
+                if (d > 0)
+                    for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++) {
+                        for (int i = grammar.rhsEnd(p) - 1; i >= grammar.rhsStart(p); i--)
+                            suffixLengths[d][i] = sum(symLengths[d-1][grammar.rhsSymbol(i)],
+                                suffix(d, p, i+1));
+                        s.or(suffix(d, p, grammar.rhsStart(p)));
+                    }
+                symLengths[d][nt] = s;
+            }
+        }
+    }
+
+    private static final BitSet EMPTY_ONLY = new BitSet();
+    static {
+        EMPTY_ONLY.set(0);
+    }
+
+    // lengths of the suffix of the rhs of p starting at index i
+    private BitSet suffix(int d, int p, int i) {
+        return i == grammar.rhsEnd(p) ? EMPTY_ONLY : suffixLengths[d][i];
+    }
+
+    private BitSet sum(BitSet a, BitSet b) {
+        BitSet s = new BitSet();
+        for (int x = a.nextSetBit(0); x >= 0; x = a.nextSetBit(x+1))
+            for (int y = b.nextSetBit(0); y >= 0 && x + y < cap; y = b.nextSetBit(y+1))
+                s.set(x + y);
+        return s;
+    }
+
+    // A sequence of trees with its sentence.
+    private static class Derivation {
+        final Cons<ParseTree> trees;
+        final String sentence;
+
+        Derivation(Cons<ParseTree> trees, String sentence) {
+            this.trees = trees;
+            this.sentence = sentence;
+        }
+
+        // prefix a tree with sentence s
+        Derivation prefix(ParseTree t, String s) {
+            String rest = s.isEmpty() || sentence.isEmpty() ?
+                s + sentence : s + " " + sentence;
+            return new Derivation(new Cons<ParseTree>(t, trees), rest);
+        }
+    }
+
+    private static final Comparator<Peeking> BY_SENTENCE = new Comparator<Peeking>() {
+        public int compare(Peeking a, Peeking b) {
+            return a.head.sentence.compareTo(b.head.sentence);
+        }
+    };
+
+    // Trees of nt of length len after d expansions, sorted by sentence,
+    // each as a singleton derivation.
+    private Iterator<Derivation> trees(int nt, int len, int d) {
+        if (! symLengths[d][nt].get(len))
+            return Collections.<Derivation>emptyIterator();
+        ArrayList<Iterator<Derivation>> alts = new ArrayList<>();
+        for (int p = grammar.firstProduction(nt); p < grammar.endProduction(nt); p++)
+            if (suffix(d, p, grammar.rhsStart(p)).get(len))
+                alts.add(sequences(p, grammar.rhsStart(p), len, d));
+        final String name = grammar.name(nt);
+        final Iterator<Derivation> merged = merge(alts);
+        return new Iterator<Derivation>() {
+            public boolean hasNext() {
+                return merged.hasNext();
+            }
+
+            public Derivation next() {
+                Derivation x = merged.next();
+                NonTerminalTree t = new NonTerminalTree(name, Cons.iterable(x.trees));
+                return new Derivation(new Cons<ParseTree>(t, null), x.sentence);
+            }
+        };
+    }
+
+    // Sequences of trees for the rhs of p from index i, of length len,
+    // with nonterminals expanded d-1 times, sorted by sentence.
+    private Iterator<Derivation> sequences(final int p, final int i,
+            final int len, final int d) {
+        if (i == grammar.rhsEnd(p))
+            return Collections.singleton(new Derivation(null, "")).iterator();
+        final int sym = grammar.rhsSymbol(i);
+        if (grammar.isTerminal(sym)) {
+            final TerminalTree leaf = leaves[sym];
+            final Iterator<Derivation> rest =
+                sequences(p, i+1, len - weight(leaf.shortName()), d);
+            return new Iterator<Derivation>() {
+                public boolean hasNext() {
+                    return rest.hasNext();
+                }
+
+                public Derivation next() {
+                    return rest.next().prefix(leaf, leaf.shortName());
+                }
+            };
+        }
+        ArrayList<Iterator<Derivation>> splits = new ArrayList<>();
+        BitSet first = symLengths[d-1][sym];
+        BitSet rest = suffix(d, p, i+1);
+        for (int n = first.nextSetBit(0); n >= 0 && n <= len; n = first.nextSetBit(n+1))
+            if (rest.get(len - n))
+                splits.add(new Product(sym, n, p, i+1, len - n, d));
+        return merge(splits);
+    }
+
+    // Sequences of a tree of sym of length n after d-1 expansions followed
+    // by the rest of the rhs of p from i.  Trees with the same sentence are
+    // grouped so that the products come out in order.
+    private class Product implements Iterator<Derivation> {
+        private final int p;
+        private final int i;
+        private final int len;
+        private final int d;
+        private final Peeking heads;
+        private final ArrayList<Derivation> group;
+        private Iterator<Derivation> tails;
+        private Derivation tail;
+        private int next; // index in group
+
+        public Product(int sym, int n, int p, int i, int len, int d) {
+            this.p = p;
+            this.i = i;
+            this.len = len;
+            this.d = d;
+            this.heads = new Peeking(trees(sym, n, d-1));
+            this.group = new ArrayList<>();
+            this.tails = Collections.<Derivation>emptyIterator();
+            this.next = 0;
+        }
+
+        public boolean hasNext() {
+            while (next >= group.size()) {
+                if (tails.hasNext()) {
+                    tail = tails.next();
+                    next = 0;
+                } else if (heads.head != null) {
+                    group.clear();
+                    Derivation h = heads.advance();
+                    group.add(h);
+                    while (heads.head != null &&
+                            heads.head.sentence.equals(h.sentence))
+                        group.add(heads.advance());
+                    tails = sequences(p, i, len, d);
+                    next = group.size();
+                } else
+                    return false;
+            }
+            return true;
+        }
+
+        public Derivation next() {
+            if (! hasNext())
+                throw new NoSuchElementException();
+            Derivation h = group.get(next++);
+            return tail.prefix(h.trees.head, h.sentence);
+        }
+    }
+
+    // an iterator with its next element (null if none) exposed
+    private static class Peeking {
+        private final Iterator<Derivation> rest;
+        Derivation head;
+
+        public Peeking(Iterator<Derivation> it) {
+            this.rest = it;
+            this.head = it.hasNext() ? it.next() : null;
+        }
+
+        public Derivation advance() {
+            Derivation x = head;
+            head = rest.hasNext() ? rest.next() : null;
+            return x;
+        }
+    }
+
+    // merge of sorted iterators
+    private static Iterator<Derivation> merge(ArrayList<Iterator<Derivation>> its) {
+        if (its.size() == 1)
+            return its.get(0);
+        final PriorityQueue<Peeking> queue =
+            new PriorityQueue<>(Math.max(1, its.size()), BY_SENTENCE);
+        for (Iterator<Derivation> it : its) {
+            Peeking pk = new Peeking(it);
+            if (pk.head != null)
+                queue.add(pk);
+        }
+        return new Iterator<Derivation>() {
+            public boolean hasNext() {
+                return ! queue.isEmpty();
+            }
+
+            public Derivation next() {
+                if (queue.isEmpty())
+                    throw new NoSuchElementException();
+                Peeking pk = queue.remove();
+                Derivation x = pk.advance();
+                if (pk.head != null)
+                    queue.add(pk);
+                return x;
+            }
+        };
+    }
+
+    // trees of the start symbol, one length at a time
+    private class AscendingIterator implements Iterator<NonTerminalTree> {
+        private long len;
+        private Peeking current;
+        // trees with the same sentence, in order of height
+        private final ArrayDeque<NonTerminalTree> pending;
+
+        public AscendingIterator() {
+            this.len = -1;
+            this.current = null;
+            this.pending = new ArrayDeque<>();
+        }
+
+        public boolean hasNext() {
+            while (pending.isEmpty()) {
+                while (current == null || current.head == null) {
+                    len++;
+                    if (len > maxLength[grammar.start()])
+                        return false;
+                    if (len >= cap)
+                        computeLengths((int)Math.min(Integer.MAX_VALUE/2, 2*len));
+                    current = new Peeking(trees(grammar.start(), (int)len, depth));
+                }
+                ArrayList<NonTerminalTree> group = new ArrayList<>();
+                Derivation h = current.advance();
+                group.add((NonTerminalTree)h.trees.head);
+                while (current.head != null &&
+                        current.head.sentence.equals(h.sentence))
+                    group.add((NonTerminalTree)current.advance().trees.head);
+                Collections.sort(group, new NonTerminalTree.Ascending());
+                pending.addAll(group);
+            }
+            return true;
+        }
+
+        public NonTerminalTree next() {
+            if (! hasNext())
+                throw new NoSuchElementException();
+            return pending.remove();
+        }
+    }
+}
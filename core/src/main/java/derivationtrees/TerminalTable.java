@@ -0,0 +1,48 @@
+package derivationtrees;
+
+/** Lookup of the terminals of a grammar by name, from a range of
+  characters without building a String.
+ */
+class TerminalTable {
+    private final CompiledGrammar grammar;
+    private final int[] table; // open addressing: symbol + 1, or 0 if free
+    private final int mask;
+
+    public TerminalTable(CompiledGrammar grammar) {
+        this.grammar = grammar;
+        int terminals = grammar.symbolCount() - grammar.nonTerminalCount();
+        int size = 4;
+        while (size < 2*terminals)
+            size = 2*size;
+        table = new int[size];
+        mask = size - 1;
+        for (int sym = grammar.nonTerminalCount(); sym < grammar.symbolCount(); sym++) {
+            int i = grammar.name(sym).hashCode() & mask;
+            while (table[i] != 0)
+                i = (i+1) & mask;
+            table[i] = sym + 1;
+        }
+    }
+
+    /** The terminal named by buf[start..end), or -1 if there is none. */
+    public int lookup(char[] buf, int start, int end) {
+        int h = 0; // as String.hashCode
+        for (int k = start; k < end; k++)
+            h = 31*h + buf[k];
+        for (int i = h & mask; table[i] != 0; i = (i+1) & mask) {
+            int sym = table[i] - 1;
+            if (matches(grammar.name(sym), buf, start, end))
+                return sym;
+        }
+        return -1;
+    }
+
+    private static boolean matches(String name, char[] buf, int start, int end) {
+        if (name.length() != end - start)
+            return false;
+        for (int k = start; k < end; k++)
+            if (name.charAt(k - start) != buf[k])
+                return false;
+        return true;
+    }
+}
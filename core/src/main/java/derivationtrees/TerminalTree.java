@@ -1,3 +1,5 @@
+package derivationtrees;
+
 import java.io.PrintWriter;
 import java.util.ArrayList;
 
@@ -24,6 +26,8 @@ public class TerminalTree extends ParseTree {
     }
 
     public boolean equals(Object obj) {
+        if (obj == this)
+            return true;
         if (obj instanceof TerminalTree) {
             TerminalTree o = (TerminalTree)obj;
             return sym.equals(o.sym);
@@ -49,6 +53,14 @@ public class TerminalTree extends ParseTree {
         return x;
     }
 
+    protected final int nodeCount() {
+        return 1;
+    }
+
+    protected final int sentenceLength() {
+        return sym.length();
+    }
+
     protected final void addSentence(StringBuffer s) {
         if (s.length() > 0)
             s.append(' ');
@@ -0,0 +1,22 @@
+package derivationtrees;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/** A stream of input symbols for a parser, given as symbol numbers of
+  a compiled grammar.
+ */
+public interface Tokenizer {
+    /** Returned by next at the end of the input. */
+    int END = -2;
+
+    /** The symbol number of the next token, -1 if the token is not a
+      terminal of the grammar, or END if there are no more tokens.
+     */
+    int next() throws IOException;
+
+    /** Construction of tokenizers of the same kind for different inputs. */
+    interface Factory {
+        Tokenizer tokenizer(Reader in);
+    }
+}
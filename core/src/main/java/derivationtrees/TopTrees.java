@@ -0,0 +1,58 @@
+package derivationtrees;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/** The first k trees in NonTerminalTree.Ascending order, holding no more
+  than k trees at a time.
+ */
+public class TopTrees {
+    /** The first k trees of any sequence, in order, selected with a heap
+      whose root is the greatest of the trees kept so far. */
+    public static ArrayList<NonTerminalTree> select(Iterable<NonTerminalTree> trees,
+            int k) {
+        Comparator<NonTerminalTree> order = new NonTerminalTree.Ascending();
+        PriorityQueue<NonTerminalTree> heap =
+            new PriorityQueue<>(Math.max(1, k), Collections.reverseOrder(order));
+        if (k > 0)
+            for (NonTerminalTree t : trees)
+                if (heap.size() < k)
+                    heap.add(t);
+                else if (order.compare(t, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(t);
+                }
+        ArrayList<NonTerminalTree> result = new ArrayList<>(heap);
+        Collections.sort(result, order);
+        return result;
+    }
+
+    /** The first k trees of a sequence that is already in order, such
+      as a StreamingExpansion, each produced only when requested. */
+    public static Iterable<NonTerminalTree> first(final Iterable<NonTerminalTree> ordered,
+            final int k) {
+        return new Iterable<NonTerminalTree>() {
+            public Iterator<NonTerminalTree> iterator() {
+                final Iterator<NonTerminalTree> trees = ordered.iterator();
+                return new Iterator<NonTerminalTree>() {
+                    private int taken = 0;
+
+                    public boolean hasNext() {
+                        return taken < k && trees.hasNext();
+                    }
+
+                    public NonTerminalTree next() {
+                        if (! hasNext())
+                            throw new NoSuchElementException();
+                        taken++;
+                        return trees.next();
+                    }
+                };
+            }
+        };
+    }
+}
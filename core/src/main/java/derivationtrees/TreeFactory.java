@@ -0,0 +1,44 @@
+package derivationtrees;
+
+import java.util.HashMap;
+
+/** Hash-consing construction of trees: structurally equal trees built
+  by the same factory are the same instance, so their subtrees are
+  shared and compare by reference.  Trees from different factories
+  are still equal if they have the same structure, but comparing them
+  takes longer.
+  A factory keeps every tree it has built, so it should not outlive the
+  trees it is used for.
+  A factory is not safe for use by several threads at once.
+ */
+public class TreeFactory {
+    private final HashMap<String, TerminalTree> terminals = new HashMap<>();
+    private final HashMap<NonTerminalTree, NonTerminalTree> nonTerminals =
+        new HashMap<>();
+
+    public TerminalTree terminal(String sym) {
+        TerminalTree t = terminals.get(sym);
+        if (t == null) {
+            t = new TerminalTree(sym);
+            terminals.put(sym, t);
+        }
+        return t;
+    }
+
+    /** The unique tree with this root and children.  Equal trees are
+      found fastest if the children were also built by this factory.
+     */
+    public NonTerminalTree nonTerminal(String sym, Iterable<ParseTree> children) {
+        NonTerminalTree t = new NonTerminalTree(sym, children);
+        NonTerminalTree old = nonTerminals.get(t);
+        if (old != null)
+            return old;
+        nonTerminals.put(t, t);
+        return t;
+    }
+
+    /** Number of distinct nonterminal trees built. */
+    public int size() {
+        return nonTerminals.size();
+    }
+}
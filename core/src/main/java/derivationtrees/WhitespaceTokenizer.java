@@ -0,0 +1,36 @@
+package derivationtrees;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/** Symbols are separated by whitespace. */
+public class WhitespaceTokenizer extends ReaderTokenizer {
+    private final TerminalTable terminals;
+
+    public WhitespaceTokenizer(CompiledGrammar grammar, Reader in) {
+        this(new TerminalTable(grammar), in);
+    }
+
+    private WhitespaceTokenizer(TerminalTable terminals, Reader in) {
+        super(in);
+        this.terminals = terminals;
+    }
+
+    /** Tokenizers for the grammar, sharing the table of terminals. */
+    public static Tokenizer.Factory factory(CompiledGrammar grammar) {
+        final TerminalTable terminals = new TerminalTable(grammar);
+        return new Tokenizer.Factory() {
+            public Tokenizer tokenizer(Reader in) {
+                return new WhitespaceTokenizer(terminals, in);
+            }
+        };
+    }
+
+    public int next() throws IOException {
+        if (! skipSpace())
+            return END;
+        while ((pos < len || fill()) && ! Character.isWhitespace(buf[pos]))
+            pos++;
+        return terminals.lookup(buf, mark, pos);
+    }
+}